@@ -0,0 +1,83 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+/**
+ * This interface can be implemented with a text model that is able to perform a set of
+ * modifications as one update. Between <code>beginUpdate</code> and <code>endUpdate</code>
+ * method calls the text model doesn't fire text events, the <code>endUpdate</code> method
+ * fires one text event that covers all the lines that have been touched. It allows text
+ * listeners (renders, views and so on) to do their work once per the set of modifications.
+ * The methods calls can be nested, in this case the event is fired by the last
+ * <code>endUpdate</code> method call.
+ */
+public interface BatchTextModel
+extends TextModel
+{
+ /**
+  * Starts the text update. The text events are not fired until the update is finished.
+  */
+  void beginUpdate();
+
+ /**
+  * Finishes the text update. If the text has been modified during the update than
+  * the method fires text event. If only one modification has been performed than
+  * the event is the same as it would be fired without the update, otherwise
+  * <code>TextEvent.UPDATED</code> event is fired. The event first updated line and
+  * number of updated lines define the modified lines of the new text, the lines
+  * that follow the modified lines are shifted by the difference between the
+  * new and the old text size.
+  */
+  void endUpdate();
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started; <code>false</code>
+  * otherwise.
+  */
+  boolean isUpdating();
+}
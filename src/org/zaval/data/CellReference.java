@@ -0,0 +1,106 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+/**
+ * This class describes a cell that a <code>MatrixFormula</code> depends on. The reference
+ * can be relative or absolute. A relative reference points to the column cell that is
+ * placed at the specified offset from the computed row, for example the zero offset is
+ * the same row and <code>-1</code> offset is the previous row. An absolute reference
+ * points to the specified cell for all rows of the computed column.
+ */
+public class CellReference
+{
+  private int     row, col;
+  private boolean isAbsolute;
+
+ /**
+  * Constructs a reference to the specified column cell of the computed row.
+  * @param <code>col</code> the specified column.
+  */
+  public CellReference(int col) {
+    this(0, col, false);
+  }
+
+ /**
+  * Constructs a reference with the specified row, column and type.
+  * @param <code>row</code> the specified row for an absolute reference or the row offset
+  * for a relative reference.
+  * @param <code>col</code> the specified column.
+  * @param <code>b</code> <code>true</code> if the reference is absolute.
+  */
+  public CellReference(int row, int col, boolean b)
+  {
+    this.row   = row;
+    this.col   = col;
+    isAbsolute = b;
+  }
+
+ /**
+  * Gets the row for an absolute reference or the row offset for a relative reference.
+  * @return a row or a row offset.
+  */
+  public int getRow() {
+    return row;
+  }
+
+ /**
+  * Gets the column.
+  * @return a column.
+  */
+  public int getCol() {
+    return col;
+  }
+
+ /**
+  * Checks if the reference is absolute.
+  * @return <code>true</code> if the reference is absolute; <code>false</code> otherwise.
+  */
+  public boolean isAbsolute() {
+    return isAbsolute;
+  }
+}
@@ -0,0 +1,548 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is implementation of <code>TypedMatrixModel</code> interface that keeps the
+ * matrix data by columns. Every column is stored with an array of primitive values
+ * (<code>int[]</code>, <code>long[]</code>, <code>double[]</code>), so numeric cells are
+ * not wrapped with objects. String columns are dictionary-encoded: a column keeps the
+ * distinct strings once and the cells refer to it by int codes.
+ * <p>
+ * The columns types are defined with the constructor or <code>addColumn</code> method.
+ * Numeric columns don't have empty cells, the <code>null</code> value is stored as zero.
+ * The <code>put</code> method converts the given object to the column type: numbers are
+ * narrowed, strings are parsed (a string that is not a number is ignored and the cell
+ * keeps its value), so the model can be edited with the grid default editors. The
+ * matrix performs the same events as <code>Matrix</code> class does, the previous value
+ * of a numeric cell is wrapped only if there is a listener registered.
+ */
+public class ColumnMatrix
+implements TypedMatrixModel
+{
+   private int[]       types;
+   private Object[]    columns;
+   private Vector[]    dicts;
+   private Hashtable[] codes;
+   private int         rows, cols, capacity;
+   private Vector      support;
+
+  /**
+   * Constructs the matrix with the specified number of rows and the given columns types.
+   * @param <code>rows</code> the specified number of rows.
+   * @param <code>types</code> the columns types. The array element should be one of the
+   * following values: INT, LONG, DOUBLE, STRING.
+   */
+   public ColumnMatrix(int rows, int[] types)
+   {
+     this.types = new int[0];
+     columns    = new Object[0];
+     dicts      = new Vector[0];
+     codes      = new Hashtable[0];
+     capacity   = rows;
+     for (int i=0; i<types.length; i++) addColumn(types[i]);
+     setRows(rows);
+   }
+
+  /**
+   * Gets the number of rows.
+   * @return a number of rows.
+   */
+   public int getRows () {
+     return rows;
+   }
+
+  /**
+   * Gets the number of columns.
+   * @return a number of columns.
+   */
+   public int getCols () {
+     return cols;
+   }
+
+  /**
+   * Gets the type of the specified column.
+   * @param <code>col</code> the specified column.
+   * @return a column type.
+   */
+   public int getType (int col)
+   {
+     if (col < 0 || col >= cols) throw new ArrayIndexOutOfBoundsException(col);
+     return types[col];
+   }
+
+  /**
+   * Sets the number of rows. The new cells are zero or <code>null</code>.
+   * @param <code>rows</code> the specified number of rows.
+   */
+   public void setRows (int rows)
+   {
+     if (rows != this.rows)
+     {
+       int pr = this.rows;
+       if (rows > capacity) realloc(Math.max(rows, capacity + capacity/2 + 16));
+       else
+       if (rows < pr)
+         for (int i=0; i<cols; i++) clear(i, rows, pr);
+       this.rows = rows;
+       perform (new MatrixEvent(this, pr, cols));
+     }
+   }
+
+  /**
+   * Adds a new column of the specified type.
+   * @param <code>type</code> the specified column type. The value should be one of the
+   * following: INT, LONG, DOUBLE, STRING.
+   */
+   public void addColumn (int type)
+   {
+     Object column = null;
+     switch (type)
+     {
+       case INT   : column = new int   [capacity]; break;
+       case LONG  : column = new long  [capacity]; break;
+       case DOUBLE: column = new double[capacity]; break;
+       case STRING: column = new int   [capacity]; break;
+       default    : throw new IllegalArgumentException();
+     }
+
+     types   = (int[])grow(types, new int[cols + 1]);
+     columns = (Object[])grow(columns, new Object[cols + 1]);
+     dicts   = (Vector[])grow(dicts, new Vector[cols + 1]);
+     codes   = (Hashtable[])grow(codes, new Hashtable[cols + 1]);
+     types  [cols] = type;
+     columns[cols] = column;
+     if (type == STRING)
+     {
+       dicts[cols] = new Vector();
+       dicts[cols].addElement(null);
+       codes[cols] = new Hashtable();
+     }
+     cols++;
+     perform (new MatrixEvent(this, rows, cols - 1));
+   }
+
+  /**
+   * Gets the value of the specified cell. Numeric values are wrapped with the
+   * appropriate <code>java.lang.Number</code> classes.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value.
+   */
+   public Object get(int row, int col)
+   {
+     check(row, col);
+     switch (types[col])
+     {
+       case INT   : return new Integer(((int[])columns[col])[row]);
+       case LONG  : return new Long(((long[])columns[col])[row]);
+       case DOUBLE: return new Double(((double[])columns[col])[row]);
+       default    : return dicts[col].elementAt(((int[])columns[col])[row]);
+     }
+   }
+
+  /**
+   * Gets the value of the specified cell as int value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value.
+   */
+   public int getInt(int row, int col)
+   {
+     check(row, col);
+     switch (types[col])
+     {
+       case INT   : return ((int[])columns[col])[row];
+       case LONG  : return (int)((long[])columns[col])[row];
+       case DOUBLE: return (int)((double[])columns[col])[row];
+       default    : return (int)parse(getString(row, col));
+     }
+   }
+
+  /**
+   * Gets the value of the specified cell as long value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value.
+   */
+   public long getLong(int row, int col)
+   {
+     check(row, col);
+     switch (types[col])
+     {
+       case INT   : return ((int[])columns[col])[row];
+       case LONG  : return ((long[])columns[col])[row];
+       case DOUBLE: return (long)((double[])columns[col])[row];
+       default    : return (long)parse(getString(row, col));
+     }
+   }
+
+  /**
+   * Gets the value of the specified cell as double value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value.
+   */
+   public double getDouble(int row, int col)
+   {
+     check(row, col);
+     switch (types[col])
+     {
+       case INT   : return ((int[])columns[col])[row];
+       case LONG  : return ((long[])columns[col])[row];
+       case DOUBLE: return ((double[])columns[col])[row];
+       default    : return parse(getString(row, col));
+     }
+   }
+
+  /**
+   * Gets the value of the specified cell as string value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value.
+   */
+   public String getString(int row, int col)
+   {
+     check(row, col);
+     switch (types[col])
+     {
+       case INT   : return Integer.toString(((int[])columns[col])[row]);
+       case LONG  : return Long.toString(((long[])columns[col])[row]);
+       case DOUBLE: return Double.toString(((double[])columns[col])[row]);
+       default    : return (String)dicts[col].elementAt(((int[])columns[col])[row]);
+     }
+   }
+
+  /**
+   * Updates the specified cell with the specified value. The value is converted to the
+   * column type. If the specified row is out of bounds the matrix dimension than the
+   * number of rows will be extended automatically. A value that cannot be parsed as
+   * a number is ignored for numeric columns, the cell keeps its current value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>obj</code> the specified value to update the cell value.
+   */
+   public void put(int row, int col, Object obj)
+   {
+     if (!(obj instanceof Number) && !accepts(col, obj == null?null:obj.toString())) return;
+     switch (getType(col))
+     {
+       case INT   : putInt   (row, col, (int)toDouble(obj)); break;
+       case LONG  : putLong  (row, col, obj instanceof Number?((Number)obj).longValue():(long)toDouble(obj)); break;
+       case DOUBLE: putDouble(row, col, toDouble(obj)); break;
+       default    : putString(row, col, obj == null?null:obj.toString()); break;
+     }
+   }
+
+  /**
+   * Updates the specified cell with the specified int value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>v</code> the specified value.
+   */
+   public void putInt(int row, int col, int v)
+   {
+     if (getType(col) != INT) putLong(row, col, v);
+     else
+     {
+       extend(row);
+       int[] c = (int[])columns[col];
+       int old = c[row];
+       if (old != v)
+       {
+         c[row] = v;
+         if (support != null) perform(new MatrixEvent(this, row, col, new Integer(old)));
+       }
+     }
+   }
+
+  /**
+   * Updates the specified cell with the specified long value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>v</code> the specified value.
+   */
+   public void putLong(int row, int col, long v)
+   {
+     switch (getType(col))
+     {
+       case INT   : putInt(row, col, (int)v); break;
+       case DOUBLE: putDouble(row, col, v); break;
+       case STRING: putString(row, col, Long.toString(v)); break;
+       default    :
+       {
+         extend(row);
+         long[] c = (long[])columns[col];
+         long old = c[row];
+         if (old != v)
+         {
+           c[row] = v;
+           if (support != null) perform(new MatrixEvent(this, row, col, new Long(old)));
+         }
+       }
+     }
+   }
+
+  /**
+   * Updates the specified cell with the specified double value.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>v</code> the specified value.
+   */
+   public void putDouble(int row, int col, double v)
+   {
+     switch (getType(col))
+     {
+       case INT   : putInt(row, col, (int)v); break;
+       case LONG  : putLong(row, col, (long)v); break;
+       case STRING: putString(row, col, Double.toString(v)); break;
+       default    :
+       {
+         extend(row);
+         double[] c = (double[])columns[col];
+         double old = c[row];
+         if (Double.doubleToLongBits(old) != Double.doubleToLongBits(v))
+         {
+           c[row] = v;
+           if (support != null) perform(new MatrixEvent(this, row, col, new Double(old)));
+         }
+       }
+     }
+   }
+
+  /**
+   * Updates the specified cell with the specified string value. For numeric columns the
+   * string is parsed, the <code>null</code> value is stored as zero and a string that
+   * is not a number is ignored.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>v</code> the specified value.
+   */
+   public void putString(int row, int col, String v)
+   {
+     if (getType(col) != STRING)
+     {
+       if (accepts(col, v)) putDouble(row, col, parse(v));
+     }
+     else
+     {
+       extend(row);
+       int[]   c    = (int[])columns[col];
+       Integer code = v == null?null:(Integer)codes[col].get(v);
+       int     old  = c[row];
+       if (v != null && code == null)
+       {
+         code = new Integer(dicts[col].size());
+         dicts[col].addElement(v);
+         codes[col].put(v, code);
+       }
+
+       int nc = code == null?0:code.intValue();
+       if (nc != old)
+       {
+         c[row] = nc;
+         perform(new MatrixEvent(this, row, col, dicts[col].elementAt(old)));
+       }
+     }
+   }
+
+  /**
+   * Removes the specified number of rows starting from the given row.
+   * @param <code>begrow</code> the first removed row.
+   * @param <code>count</code> the number of rows to be removed starting from the first row.
+   */
+   public void removeRows(int begrow, int count)
+   {
+     for (int i=0; i<cols; i++)
+     {
+       Object c = columns[i];
+       System.arraycopy(c, begrow + count, c, begrow, rows - begrow - count);
+       clear(i, rows - count, rows);
+     }
+     rows -= count;
+     perform(new MatrixEvent(this, rows + count, cols));
+   }
+
+  /**
+   * Removes the specified number of columns starting from the given column.
+   * @param <code>begcol</code> the first removed column.
+   * @param <code>count</code> the number of columns to be removed starting from the first column.
+   */
+   public void removeCols(int begcol, int count)
+   {
+     int len = cols - begcol - count;
+     System.arraycopy(types, begcol + count, types, begcol, len);
+     System.arraycopy(columns, begcol + count, columns, begcol, len);
+     System.arraycopy(dicts, begcol + count, dicts, begcol, len);
+     System.arraycopy(codes, begcol + count, codes, begcol, len);
+     for (int i=cols - count; i<cols; i++)
+     {
+       columns[i] = null;
+       dicts  [i] = null;
+       codes  [i] = null;
+     }
+     cols -= count;
+     perform(new MatrixEvent(this, rows, cols + count));
+   }
+
+  /**
+   * Adds the matrix listener to be notified whenever the matrix cell has been updated or
+   * the matrix dimension has been changed.
+   * @param <code>m</code> the matrix listener.
+   */
+   public void addMatrixListener (MatrixListener m) {
+     if (support == null) support = new Vector(1);
+     if (!support.contains(m)) support.addElement(m);
+   }
+
+  /**
+   * Removes the matrix listener.
+   * @param <code>m</code> the matrix listener.
+   */
+   public void removeMatrixListener (MatrixListener m)
+   {
+     if (support != null)
+     {
+       support.removeElement(m);
+       if (support.size() == 0) support = null;
+     }
+   }
+
+  /**
+   * Fires the specified event to registered matrix listeners.
+   * @param <code>e</code> the specified event.
+   */
+   protected void perform(MatrixEvent e)
+   {
+     if (support != null)
+     {
+       for (int i=0; i<support.size(); i++)
+       {
+         MatrixListener l = (MatrixListener)support.elementAt(i);
+         if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+         else l.cellModified(e);
+       }
+     }
+   }
+
+   private void check(int row, int col) {
+     if (row < 0 || row >= rows) throw new ArrayIndexOutOfBoundsException(row);
+     if (col < 0 || col >= cols) throw new ArrayIndexOutOfBoundsException(col);
+   }
+
+   private void extend(int row) {
+     if (row >= rows) setRows(row + 1);
+   }
+
+   private void realloc(int size)
+   {
+     for (int i=0; i<cols; i++)
+     {
+       Object c = columns[i], nc = null;
+       switch (types[i])
+       {
+         case LONG  : nc = new long  [size]; break;
+         case DOUBLE: nc = new double[size]; break;
+         default    : nc = new int   [size]; break;
+       }
+       System.arraycopy(c, 0, nc, 0, rows);
+       columns[i] = nc;
+     }
+     capacity = size;
+   }
+
+   private void clear(int col, int from, int to)
+   {
+     Object c = columns[col];
+     switch (types[col])
+     {
+       case LONG  : Arrays.fill((long[])c, from, to, 0L); break;
+       case DOUBLE: Arrays.fill((double[])c, from, to, 0.0); break;
+       default    : Arrays.fill((int[])c, from, to, 0); break;
+     }
+   }
+
+   private static Object grow(Object a, Object na) {
+     System.arraycopy(a, 0, na, 0, java.lang.reflect.Array.getLength(a));
+     return na;
+   }
+
+   private static double toDouble(Object obj)
+   {
+     if (obj == null) return 0;
+     if (obj instanceof Number) return ((Number)obj).doubleValue();
+     return parse(obj.toString());
+   }
+
+   private boolean accepts(int col, String s)
+   {
+     if (getType(col) == STRING || s == null || s.trim().length() == 0) return true;
+     try {
+       Double.valueOf(s.trim());
+       return true;
+     }
+     catch (NumberFormatException e) {
+       return false;
+     }
+   }
+
+   private static double parse(String s)
+   {
+     if (s == null) return 0;
+     s = s.trim();
+     if (s.length() == 0) return 0;
+     try {
+       return Double.valueOf(s).doubleValue();
+     }
+     catch (NumberFormatException e) {
+       return 0;
+     }
+   }
+}
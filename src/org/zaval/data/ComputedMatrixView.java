@@ -0,0 +1,587 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a view of the specified <code>MatrixModel</code> that adds computed columns
+ * to the model columns. The computed columns follow the model columns, every computed
+ * column has a <code>MatrixFormula</code> and the list of the cells the formula depends on
+ * (see <code>CellReference</code> class). A formula can reference the model columns, the
+ * previously added computed columns and the computed column itself with a not zero row
+ * offset (for instance, a running total references the previous row of its column).
+ * <p>
+ * The view keeps the computed values. When the underlying model performs an event the view
+ * finds the computed cells that depend on the changed cells and recalculates only them.
+ * The computed columns are recalculated in the order they have been added, so a computed
+ * cell is recalculated after all cells it depends on, and only the cells whose values have
+ * actually been changed make their dependent cells dirty. The view performs events only
+ * for the computed cells whose values have been changed.
+ * <p>
+ * The dirty cells of a column that doesn't reference itself are independent. The cells are
+ * computed in the calling thread, use <code>setParallel</code> method to compute a large
+ * number of the cells in parallel using the common fork-join pool if the formulas and the
+ * underlying model allow reading the cells from several threads.
+ */
+public class ComputedMatrixView
+implements MatrixModel, MatrixListener
+{
+  private static final int PARALLEL_THRESHOLD = 2048;
+
+  private MatrixModel     model;
+  private int             baseCols, modelRows;
+  private MatrixFormula[] formulas = new MatrixFormula[0];
+  private int[][]         refCols = new int[0][], refRows = new int[0][];
+  private boolean[][]     refAbs = new boolean[0][];
+  private int[]           steps = new int[0];
+  private Object[][]      values = new Object[0][];
+  private boolean         isParallel;
+  private Vector          support;
+
+ /**
+  * Constructs a new view for the specified matrix model. The view doesn't have computed
+  * columns.
+  * @param <code>m</code> the specified matrix model.
+  */
+  public ComputedMatrixView(MatrixModel m)
+  {
+    model     = m;
+    baseCols  = m.getCols();
+    modelRows = m.getRows();
+    model.addMatrixListener(this);
+  }
+
+ /**
+  * Gets the underlying matrix model.
+  * @return an underlying matrix model.
+  */
+  public MatrixModel getModel() {
+    return model;
+  }
+
+ /**
+  * Gets the number of rows.
+  * @return a number of rows.
+  */
+  public int getRows () {
+    return modelRows;
+  }
+
+ /**
+  * Gets the number of columns. The number includes the computed columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return baseCols + formulas.length;
+  }
+
+ /**
+  * Adds the computed column with the specified formula. The column is added after the
+  * last column of the view, all cells of the column are computed. A reference to the
+  * added column itself has to be relative with a not zero row offset, the offsets of the
+  * column references to itself should have the same sign.
+  * @param <code>f</code> the specified formula.
+  * @param <code>refs</code> the cells the formula depends on.
+  * @return an index of the computed column.
+  */
+  public int addColumn (MatrixFormula f, CellReference[] refs)
+  {
+    int col = getCols(), k = formulas.length, step = 0;
+    int[]     rc = new int[refs.length], rr = new int[refs.length];
+    boolean[] ra = new boolean[refs.length];
+    for (int i=0; i<refs.length; i++)
+    {
+      int c = refs[i].getCol();
+      if (c < 0 || c > col) throw new IllegalArgumentException();
+      if (c == col)
+      {
+        int s = refs[i].getRow() < 0?1:-1;
+        if (refs[i].isAbsolute() || refs[i].getRow() == 0 || (step != 0 && step != s))
+          throw new IllegalArgumentException();
+        step = s;
+      }
+
+      if (refs[i].isAbsolute() && refs[i].getRow() < 0) throw new IllegalArgumentException();
+      rc[i] = c < baseCols?c:baseCols - c - 1;
+      rr[i] = refs[i].getRow();
+      ra[i] = refs[i].isAbsolute();
+    }
+
+    formulas = (MatrixFormula[])append(formulas, new MatrixFormula[k + 1], f);
+    refCols  = (int[][])append(refCols, new int[k + 1][], rc);
+    refRows  = (int[][])append(refRows, new int[k + 1][], rr);
+    refAbs   = (boolean[][])append(refAbs, new boolean[k + 1][], ra);
+    values   = (Object[][])append(values, new Object[k + 1][], new Object[modelRows]);
+    int[] ns = new int[k + 1];
+    System.arraycopy(steps, 0, ns, 0, k);
+    ns[k] = step;
+    steps = ns;
+
+    evaluate(k, Rows.range(0, modelRows));
+    perform(new MatrixEvent(this, modelRows, col));
+    return col;
+  }
+
+ /**
+  * Gets the formula of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return a formula or <code>null</code> if the column is not computed.
+  */
+  public MatrixFormula getFormula (int col) {
+    return isComputed(col)?formulas[col - baseCols]:null;
+  }
+
+ /**
+  * Checks if the specified column is computed.
+  * @param <code>col</code> the specified column.
+  * @return <code>true</code> if the column is computed; <code>false</code> otherwise.
+  */
+  public boolean isComputed (int col) {
+    return col >= baseCols && col < getCols();
+  }
+
+ /**
+  * Recalculates all computed cells. The method can be used if a formula depends on data
+  * that is not described by its references. The view performs events for the cells whose
+  * values have been changed.
+  */
+  public void recompute () {
+    fire(propagate(new Rows[baseCols], Rows.range(0, modelRows)));
+  }
+
+ /**
+  * Sets if the dirty cells are computed in parallel. The mode can be enabled only if the
+  * formulas and the underlying model are thread-safe, by default the cells are computed in
+  * the calling thread.
+  * @param <code>b</code> <code>true</code> to compute the cells in parallel.
+  */
+  public void setParallel (boolean b) {
+    isParallel = b;
+  }
+
+ /**
+  * Checks if the dirty cells are computed in parallel.
+  * @return <code>true</code> if the cells are computed in parallel.
+  */
+  public boolean isParallel () {
+    return isParallel;
+  }
+
+ /**
+  * Gets the value of the specified cell.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col)
+  {
+    if (col < baseCols) return model.get(row, col);
+    if (row < 0 || row >= modelRows || col >= getCols()) throw new IndexOutOfBoundsException();
+    return values[col - baseCols][row];
+  }
+
+ /**
+  * Updates the specified cell of the underlying model with the specified value. It is
+  * impossible to update a computed cell, the method throws
+  * <code>UnsupportedOperationException</code> in this case.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>obj</code> the specified value to update the cell value.
+  */
+  public void put(int row, int col, Object obj)
+  {
+    if (col >= baseCols) throw new UnsupportedOperationException();
+    model.put(row, col, obj);
+  }
+
+  public void matrixResized(MatrixEvent e)
+  {
+    int pr = e.getPrevSize().width, pc = e.getPrevSize().height + formulas.length;
+    int rows = model.getRows(), cols = model.getCols(), row = e.getResizedRow();
+    if (rows > pr && cols == baseCols && (row < 0 || row == pr) && modelRows == pr)
+    {
+      for (int k=0; k<values.length; k++)
+      {
+        Object[] nv = new Object[rows];
+        System.arraycopy(values[k], 0, nv, 0, pr);
+        values[k] = nv;
+      }
+      modelRows = rows;
+      perform(new MatrixEvent(this, pr, pc, row));
+
+      Rows   added   = Rows.range(pr, rows);
+      Rows[] changed = new Rows[baseCols];
+      for (int c=0; c<baseCols; c++) changed[c] = added;
+      fire(propagate(changed, added));
+    }
+    else
+    if (row >= 0 && row <= Math.min(pr, rows) && cols == baseCols && modelRows == pr)
+    {
+      // the rows have been inserted or removed at the specified row: the old values are
+      // shifted, so only the cells whose values have been changed are reported
+      int    d       = rows - pr;
+      Rows[] changed = new Rows[values.length];
+      modelRows = rows;
+      for (int k=0; k<values.length; k++)
+      {
+        Object[] nv = new Object[rows];
+        System.arraycopy(values[k], 0, nv, 0, row);
+        if (d > 0) System.arraycopy(values[k], row, nv, row + d, pr - row);
+        else       System.arraycopy(values[k], row - d, nv, row, rows - row);
+        values[k]  = nv;
+        changed[k] = evaluate(k, Rows.range(0, rows));
+      }
+      perform(new MatrixEvent(this, pr, pc, row));
+      fire(changed);
+    }
+    else
+    {
+      baseCols  = cols;
+      modelRows = rows;
+      for (int k=0; k<values.length; k++)
+      {
+        values[k] = new Object[rows];
+        evaluate(k, Rows.range(0, rows));
+      }
+      perform(new MatrixEvent(this, pr, pc));
+      if (rows > 0 && values.length > 0)
+        perform(new MatrixEvent(this, 0, baseCols, rows, values.length));
+    }
+  }
+
+  public void cellModified(MatrixEvent e)
+  {
+    java.awt.Rectangle r = e.getModifiedRange();
+    if (e.getID() == MatrixEvent.CELL_MODIFIED) perform(new MatrixEvent(this, r.x, r.y, e.getPrevValue()));
+    else                                        perform(new MatrixEvent(this, r.x, r.y, r.width, r.height));
+
+    if (formulas.length > 0)
+    {
+      Rows   rows    = Rows.range(r.x, r.x + r.width);
+      Rows[] changed = new Rows[baseCols];
+      for (int c=r.y; c<r.y + r.height && c<baseCols; c++) changed[c] = rows;
+      fire(propagate(changed, null));
+    }
+  }
+
+ /**
+  * Adds the matrix listener to be notified whenever the view cell has been updated or
+  * the view dimension has been changed.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener m) {
+    if (support == null) support = new Vector(1);
+    if (!support.contains(m)) support.addElement(m);
+  }
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void removeMatrixListener (MatrixListener m) {
+    if (support != null) support.removeElement(m);
+  }
+
+ /**
+  * Fires the specified event to registered matrix listeners.
+  * @param <code>e</code> the specified event.
+  */
+  protected void perform(MatrixEvent e)
+  {
+    if (support != null)
+    {
+      for (int i=0; i<support.size(); i++)
+      {
+        MatrixListener l = (MatrixListener)support.elementAt(i);
+        if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+        else l.cellModified(e);
+      }
+    }
+  }
+
+ /**
+  * Recalculates the computed cells that depend on the specified changed model cells and
+  * returns the changed rows of every computed column. The specified extra rows are
+  * recalculated in all computed columns.
+  */
+  private Rows[] propagate(Rows[] base, Rows extra)
+  {
+    Rows[] changed = new Rows[formulas.length];
+    for (int k=0; k<formulas.length; k++)
+    {
+      Rows      dirty = new Rows();
+      int[]     rc = refCols[k], rr = refRows[k];
+      boolean[] ra = refAbs[k];
+      if (extra != null) dirty.add(extra);
+      for (int i=0; i<rc.length; i++)
+      {
+        int  c   = rc[i];
+        Rows src = c >= 0?(c < base.length?base[c]:null):(-c - 1 < k?changed[-c - 1]:null);
+        if (src == null || src.size == 0) continue;
+
+        if (ra[i])
+        {
+          if (src.contains(rr[i]))
+          {
+            dirty = Rows.range(0, modelRows);
+            break;
+          }
+        }
+        else
+        {
+          for (int j=0; j<src.size; j++)
+          {
+            int t = src.rows[j] - rr[i];
+            if (t >= 0 && t < modelRows) dirty.add(t);
+          }
+        }
+      }
+
+      dirty.sort();
+      if (dirty.size > 0) changed[k] = evaluate(k, dirty);
+    }
+    return changed;
+  }
+
+ /**
+  * Computes the specified dirty rows of the specified computed column and stores the
+  * values. The method returns the rows whose values have been changed.
+  */
+  private Rows evaluate(int k, Rows dirty)
+  {
+    Rows     changed = new Rows();
+    Object[] vals    = values[k];
+    if (steps[k] == 0)
+    {
+      Object[] res = new Object[dirty.size];
+      if (isParallel && dirty.size > PARALLEL_THRESHOLD)
+        ForkJoinPool.commonPool().invoke(new ComputeTask(formulas[k], dirty.rows, res, 0, dirty.size));
+      else
+        compute(formulas[k], dirty.rows, res, 0, dirty.size);
+
+      for (int i=0; i<dirty.size; i++)
+      {
+        int row = dirty.rows[i];
+        if (!equals(vals[row], res[i]))
+        {
+          vals[row] = res[i];
+          changed.add(row);
+        }
+      }
+    }
+    else
+    {
+      // the rows are visited in the dependency order, a changed row makes dirty
+      // the rows of the column that reference it
+      int   step = steps[k];
+      int[] rc = refCols[k], rr = refRows[k];
+      Rows  queue = new Rows();
+      for (int i=0; i<dirty.size; i++) queue.add(step*dirty.rows[step > 0?i:dirty.size - i - 1]);
+      for (int i=0; i<queue.size; i++)
+      {
+        int    row = step*queue.rows[i];
+        Object v   = formulas[k].compute(this, row);
+        if (!equals(vals[row], v))
+        {
+          vals[row] = v;
+          changed.add(row);
+          for (int j=0; j<rc.length; j++)
+            if (rc[j] == -k - 1)
+            {
+              int t = row - rr[j];
+              if (t >= 0 && t < modelRows) queue.insert(step*t, i + 1);
+            }
+        }
+      }
+      changed.sort();
+    }
+    return changed;
+  }
+
+  private void compute(MatrixFormula f, int[] rows, Object[] res, int from, int to)
+  {
+    for (int i=from; i<to; i++) res[i] = f.compute(this, rows[i]);
+  }
+
+ /**
+  * Performs events for the specified changed rows of the computed columns. The adjacent
+  * changed rows of a column are reported with one range event.
+  */
+  private void fire(Rows[] changed)
+  {
+    for (int k=0; k<changed.length; k++)
+    {
+      Rows r = changed[k];
+      if (r == null) continue;
+      for (int i=0; i<r.size; )
+      {
+        int j = i + 1;
+        while (j < r.size && r.rows[j] == r.rows[j - 1] + 1) j++;
+        if (j - i == 1) perform(new MatrixEvent(this, r.rows[i], baseCols + k, null));
+        else            perform(new MatrixEvent(this, r.rows[i], baseCols + k, j - i, 1));
+        i = j;
+      }
+    }
+  }
+
+  private static Object append(Object[] a, Object[] na, Object o)
+  {
+    System.arraycopy(a, 0, na, 0, a.length);
+    na[a.length] = o;
+    return na;
+  }
+
+  private static boolean equals(Object a, Object b) {
+    return a == null?b == null:a.equals(b);
+  }
+
+ /**
+  * This class is a list of rows.
+  */
+  private static class Rows
+  {
+    int[] rows = new int[8];
+    int   size;
+
+    static Rows range(int from, int to)
+    {
+      Rows r = new Rows();
+      r.rows = new int[Math.max(to - from, 1)];
+      for (int i=from; i<to; i++) r.rows[r.size++] = i;
+      return r;
+    }
+
+    void add(int row)
+    {
+      if (size == rows.length)
+      {
+        int[] nr = new int[size * 2];
+        System.arraycopy(rows, 0, nr, 0, size);
+        rows = nr;
+      }
+      rows[size++] = row;
+    }
+
+    void add(Rows r) {
+      for (int i=0; i<r.size; i++) add(r.rows[i]);
+    }
+
+   /**
+    * Sorts the rows and removes the duplicates.
+    */
+    void sort()
+    {
+      Arrays.sort(rows, 0, size);
+      int n = 0;
+      for (int i=0; i<size; i++)
+        if (n == 0 || rows[n - 1] != rows[i]) rows[n++] = rows[i];
+      size = n;
+    }
+
+   /**
+    * Inserts the specified row into the sorted part of the list that starts from the
+    * specified index if the part doesn't contain the row.
+    */
+    void insert(int row, int from)
+    {
+      int p = find(row, from);
+      if (p < size && rows[p] == row) return;
+      add(0);
+      System.arraycopy(rows, p, rows, p + 1, size - p - 1);
+      rows[p] = row;
+    }
+
+    boolean contains(int row)
+    {
+      int p = find(row, 0);
+      return p < size && rows[p] == row;
+    }
+
+    private int find(int row, int from)
+    {
+      int lo = from, hi = size;
+      while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (rows[mid] < row) lo = mid + 1;
+        else                 hi = mid;
+      }
+      return lo;
+    }
+  }
+
+  private class ComputeTask
+  extends RecursiveAction
+  {
+    private MatrixFormula f;
+    private int[]         rows;
+    private Object[]      res;
+    private int           from, to;
+
+    ComputeTask(MatrixFormula f, int[] rows, Object[] res, int from, int to)
+    {
+      this.f    = f;
+      this.rows = rows;
+      this.res  = res;
+      this.from = from;
+      this.to   = to;
+    }
+
+    protected void compute()
+    {
+      if (to - from <= PARALLEL_THRESHOLD) ComputedMatrixView.this.compute(f, rows, res, from, to);
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new ComputeTask(f, rows, res, from, mid), new ComputeTask(f, rows, res, mid, to));
+      }
+    }
+  }
+}
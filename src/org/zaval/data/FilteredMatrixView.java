@@ -0,0 +1,481 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a filtered view of the specified <code>MatrixModel</code>. A filter can be
+ * set for every column of the view, the view shows the underlying model rows whose cells
+ * pass all the columns filters. The rows keep the underlying model order.
+ * <p>
+ * The view keeps the index of the visible rows and a flag for every model row that says if
+ * the row passes the filters. When the underlying model performs an event only the rows of
+ * the event are checked with the filters and the index is updated incrementally: a single
+ * row is inserted into or removed from the index and the view performs MATRIX_RESIZED event
+ * that says where the row has been inserted or removed, so the grid keeps its selection.
+ * <p>
+ * Rows inserted into or removed from the underlying model shift the index, only the
+ * inserted rows are checked and the view performs MATRIX_RESIZED event that says where the
+ * visible rows have been inserted or removed.
+ * <p>
+ * When a filter is changed all rows are checked. The rows are checked in the calling
+ * thread, use <code>setParallel</code> method to check large matrixes by chunks in parallel
+ * using the common fork-join pool if the underlying model and the filters allow reading
+ * the cells from several threads.
+ */
+public class FilteredMatrixView
+implements MatrixModel, MatrixListener
+{
+  private static final int PARALLEL_THRESHOLD = 8192;
+
+  private MatrixModel    model;
+  private MatrixFilter[] filters = new MatrixFilter[0];
+  private boolean[]      accepted = new boolean[0];
+  private int[]          index = new int[16];
+  private int            count, modelRows;
+  private boolean        isParallel;
+  private Vector         support;
+
+ /**
+  * Constructs a new filtered view for the specified matrix model. The view doesn't have
+  * filters, so all rows are visible.
+  * @param <code>m</code> the specified matrix model.
+  */
+  public FilteredMatrixView(MatrixModel m)
+  {
+    model = m;
+    model.addMatrixListener(this);
+    rebuild();
+  }
+
+ /**
+  * Gets the underlying matrix model.
+  * @return an underlying matrix model.
+  */
+  public MatrixModel getModel() {
+    return model;
+  }
+
+ /**
+  * Gets the number of visible rows.
+  * @return a number of rows.
+  */
+  public int getRows () {
+    return count;
+  }
+
+ /**
+  * Gets the number of columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return model.getCols();
+  }
+
+ /**
+  * Gets the underlying model row for the specified view row.
+  * @param <code>row</code> the specified view row.
+  * @return an underlying model row.
+  */
+  public int getModelRow (int row)
+  {
+    if (row < 0 || row >= count) throw new ArrayIndexOutOfBoundsException(row);
+    return index[row];
+  }
+
+ /**
+  * Gets the view row for the specified underlying model row.
+  * @param <code>row</code> the specified model row.
+  * @return a view row or <code>-1</code> if the row doesn't pass the filters.
+  */
+  public int getViewRow (int row) {
+    return accepted[row]?find(row):-1;
+  }
+
+ /**
+  * Gets the value of the specified cell.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col) {
+    return model.get(getModelRow(row), col);
+  }
+
+ /**
+  * Updates the specified cell of the underlying model with the specified value. The row
+  * can disappear from the view if the new value doesn't pass the column filter.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @param <code>obj</code> the specified value to update the cell value.
+  */
+  public void put(int row, int col, Object obj) {
+    model.put(getModelRow(row), col, obj);
+  }
+
+ /**
+  * Sets the filter for the specified column. Use <code>null</code> to remove the column
+  * filter. The method checks all rows with the new filters. A filter of a column that
+  * the underlying model doesn't have (for instance after the model columns have been
+  * removed) is ignored.
+  * @param <code>col</code> the specified column.
+  * @param <code>f</code> the filter.
+  */
+  public void setFilter (int col, MatrixFilter f)
+  {
+    if (getFilter(col) != f)
+    {
+      if (col >= filters.length)
+      {
+        MatrixFilter[] nf = new MatrixFilter[col + 1];
+        System.arraycopy(filters, 0, nf, 0, filters.length);
+        filters = nf;
+      }
+      filters[col] = f;
+      refilter();
+    }
+  }
+
+ /**
+  * Gets the filter of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return a filter or <code>null</code> if the column is not filtered.
+  */
+  public MatrixFilter getFilter (int col) {
+    return col < filters.length?filters[col]:null;
+  }
+
+ /**
+  * Removes all filters.
+  */
+  public void clearFilters ()
+  {
+    if (isFiltered())
+    {
+      filters = new MatrixFilter[0];
+      refilter();
+    }
+  }
+
+ /**
+  * Checks if the view has a filter.
+  * @return <code>true</code> if the view has a filter; <code>false</code> otherwise.
+  */
+  public boolean isFiltered ()
+  {
+    for (int i=0; i<filters.length; i++)
+      if (filters[i] != null) return true;
+    return false;
+  }
+
+ /**
+  * Sets if the rows are checked in parallel when the filters are changed. The mode can be
+  * enabled only if the underlying model and the filters are thread-safe, by default the
+  * rows are checked in the calling thread.
+  * @param <code>b</code> <code>true</code> to check the rows in parallel.
+  */
+  public void setParallel (boolean b) {
+    isParallel = b;
+  }
+
+ /**
+  * Checks if the rows are checked in parallel when the filters are changed.
+  * @return <code>true</code> if the rows are checked in parallel.
+  */
+  public boolean isParallel () {
+    return isParallel;
+  }
+
+  public void matrixResized(MatrixEvent e)
+  {
+    int pr = e.getPrevSize().width, rows = model.getRows(), row = e.getResizedRow();
+    if (row < 0 && rows > pr) row = pr;
+
+    int prevCount = count;
+    if (row >= 0 && row <= Math.min(pr, rows) && modelRows == pr && e.getPrevSize().height == getCols())
+    {
+      // the rows have been inserted or removed at the specified row, only the inserted
+      // rows are checked and the index is shifted
+      int p = find(row), d = rows - pr;
+      if (d > 0)
+      {
+        grow(rows);
+        System.arraycopy(accepted, row, accepted, row + d, pr - row);
+        check(row, row + d);
+        int n = 0;
+        for (int i=row; i<row + d; i++)
+          if (accepted[i]) n++;
+        if (count + n > index.length)
+        {
+          int[] ni = new int[count + n + count/2 + 16];
+          System.arraycopy(index, 0, ni, 0, count);
+          index = ni;
+        }
+        System.arraycopy(index, p, index, p + n, count - p);
+        count += n;
+        for (int i=p + n; i<count; i++) index[i] += d;
+        for (int i=row; i<row + d; i++)
+          if (accepted[i]) index[p++] = i;
+        p -= n;
+      }
+      else
+      if (d < 0)
+      {
+        int n = find(row - d) - p;
+        System.arraycopy(accepted, row - d, accepted, row, pr - row + d);
+        System.arraycopy(index, p + n, index, p, count - p - n);
+        count -= n;
+        for (int i=p; i<count; i++) index[i] += d;
+      }
+      modelRows = rows;
+      if (prevCount != count) perform(new MatrixEvent(this, prevCount, getCols(), p));
+    }
+    else
+    {
+      rebuild();
+      perform(new MatrixEvent(this, prevCount, e.getPrevSize().height));
+    }
+  }
+
+  public void cellModified(MatrixEvent e)
+  {
+    java.awt.Rectangle r = e.getModifiedRange();
+    boolean isFilter = false;
+    for (int i=r.y; i<r.y + r.height && i<filters.length && !isFilter; i++)
+      isFilter = filters[i] != null;
+
+    if (e.getID() == MatrixEvent.CELL_MODIFIED)
+    {
+      int row = r.x;
+      if (isFilter && accepted[row] != isAccepted(row))
+      {
+        int p = find(row);
+        accepted[row] = !accepted[row];
+        if (accepted[row]) add(p, row);
+        else               remove(p);
+        perform(new MatrixEvent(this, accepted[row]?count - 1:count + 1, getCols(), p));
+      }
+      else
+      if (accepted[row]) perform(new MatrixEvent(this, find(row), r.y, e.getPrevValue()));
+    }
+    else
+    {
+      if (isFilter)
+      {
+        int     prevCount = count;
+        boolean changed   = false;
+        for (int i=r.x; i<r.x + r.width; i++)
+        {
+          boolean b = isAccepted(i);
+          if (b != accepted[i])
+          {
+            accepted[i] = b;
+            changed     = true;
+          }
+        }
+
+        if (changed)
+        {
+          compact();
+          perform(new MatrixEvent(this, prevCount, getCols()));
+          int first = find(r.x);
+          if (count > first) perform(new MatrixEvent(this, first, 0, count - first, getCols()));
+          return;
+        }
+      }
+
+      int first = find(r.x), last = find(r.x + r.width);
+      if (last > first) perform(new MatrixEvent(this, first, r.y, last - first, r.height));
+    }
+  }
+
+ /**
+  * Adds the matrix listener to be notified whenever the view cell has been updated or
+  * the view dimension has been changed.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener m) {
+    if (support == null) support = new Vector(1);
+    if (!support.contains(m)) support.addElement(m);
+  }
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void removeMatrixListener (MatrixListener m) {
+    if (support != null) support.removeElement(m);
+  }
+
+ /**
+  * Fires the specified event to registered matrix listeners.
+  * @param <code>e</code> the specified event.
+  */
+  protected void perform(MatrixEvent e)
+  {
+    if (support != null)
+    {
+      for (int i=0; i<support.size(); i++)
+      {
+        MatrixListener l = (MatrixListener)support.elementAt(i);
+        if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+        else l.cellModified(e);
+      }
+    }
+  }
+
+  private void refilter()
+  {
+    int prevCount = count;
+    rebuild();
+    if (prevCount != count) perform(new MatrixEvent(this, prevCount, getCols()));
+    if (count > 0 && getCols() > 0) perform(new MatrixEvent(this, 0, 0, count, getCols()));
+  }
+
+  private void rebuild()
+  {
+    int rows = model.getRows();
+    accepted  = new boolean[rows];
+    modelRows = rows;
+    if (isParallel && rows > PARALLEL_THRESHOLD) ForkJoinPool.commonPool().invoke(new CheckTask(0, rows));
+    else                                          check(0, rows);
+    compact();
+  }
+
+  private void grow(int rows)
+  {
+    if (rows > accepted.length)
+    {
+      boolean[] na = new boolean[Math.max(rows, accepted.length + accepted.length/2)];
+      System.arraycopy(accepted, 0, na, 0, modelRows);
+      accepted = na;
+    }
+  }
+
+  private void check(int from, int to)
+  {
+    for (int i=from; i<to; i++) accepted[i] = isAccepted(i);
+  }
+
+  private boolean isAccepted(int row)
+  {
+    int cols = Math.min(filters.length, model.getCols());
+    for (int i=0; i<cols; i++)
+      if (filters[i] != null && !filters[i].accept(model.get(row, i))) return false;
+    return true;
+  }
+
+  private void compact()
+  {
+    int rows = modelRows, n = 0;
+    for (int i=0; i<rows; i++)
+      if (accepted[i]) n++;
+    if (index.length < n || index.length > n*4 + 16) index = new int[n + 16];
+    count = 0;
+    for (int i=0; i<rows; i++)
+      if (accepted[i]) index[count++] = i;
+  }
+
+  private void add(int p, int row)
+  {
+    if (count == index.length)
+    {
+      int[] ni = new int[count + count/2 + 16];
+      System.arraycopy(index, 0, ni, 0, count);
+      index = ni;
+    }
+    System.arraycopy(index, p, index, p + 1, count - p);
+    index[p] = row;
+    count++;
+  }
+
+  private void remove(int p)
+  {
+    System.arraycopy(index, p + 1, index, p, count - p - 1);
+    count--;
+  }
+
+ /**
+  * Finds the first view row whose model row is not less than the specified model row.
+  */
+  private int find(int row)
+  {
+    int lo = 0, hi = count;
+    while (lo < hi)
+    {
+      int mid = (lo + hi) >>> 1;
+      if (index[mid] < row) lo = mid + 1;
+      else                  hi = mid;
+    }
+    return lo;
+  }
+
+  private class CheckTask
+  extends RecursiveAction
+  {
+    private int from, to;
+
+    CheckTask(int from, int to)
+    {
+      this.from = from;
+      this.to   = to;
+    }
+
+    protected void compute()
+    {
+      if (to - from <= PARALLEL_THRESHOLD) check(from, to);
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new CheckTask(from, mid), new CheckTask(mid, to));
+      }
+    }
+  }
+}
@@ -0,0 +1,825 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a grouping view of the specified <code>MatrixModel</code>. The underlying
+ * model rows are grouped by the values of the group column, every group is shown as a
+ * synthetic header row followed by the group rows. The groups are ordered by their keys
+ * and the rows of a group keep the underlying model order. A group can be collapsed, in
+ * this case only the group header row is shown.
+ * <p>
+ * An aggregate function (sum, count, min or max) can be set for a column, the group header
+ * row shows the aggregate value of the column for the group rows. The aggregates are kept
+ * incrementally: every group stores the aggregated values in a segment tree, so a cell
+ * update changes the group sum, count, min and max for O(log n) of the group size.
+ * Changing the group column value moves the row to another group: the aggregates of both
+ * groups are updated in the same manner, but the row is also removed from and inserted
+ * into the ordered rows arrays of the groups, that costs an array copy of O(n) of the
+ * group size, and the groups header rows are recomputed for O(g) of the number of groups.
+ * The view performs positioned MATRIX_RESIZED events for the removed and the inserted
+ * rows, so a grid keeps its selection and rows heights.
+ * <p>
+ * The underlying model cells are read as numbers: <code>Number</code> values and numeric
+ * columns of a <code>TypedMatrixModel</code> are aggregated, other values are ignored.
+ */
+public class GroupedMatrixView
+implements MatrixModel, MatrixListener
+{
+ /**
+  * The no aggregate function.
+  */
+  public static final int NONE  = 0;
+
+ /**
+  * The sum aggregate function.
+  */
+  public static final int SUM   = 1;
+
+ /**
+  * The count aggregate function. The function counts numeric values of the column.
+  */
+  public static final int COUNT = 2;
+
+ /**
+  * The minimum aggregate function.
+  */
+  public static final int MIN   = 3;
+
+ /**
+  * The maximum aggregate function.
+  */
+  public static final int MAX   = 4;
+
+  private static final Object NULL_KEY = new Object();
+
+  private MatrixModel model;
+  private int         groupCol, modelRows, count;
+  private int[]       functions = new int[0], aggCols = new int[0], slots = new int[0];
+  private Group[]     groupOf = new Group[0];
+  private Vector      groups = new Vector();
+  private Hashtable   keys = new Hashtable();
+  private boolean     isValid;
+  private Vector      support;
+
+ /**
+  * Constructs a new grouping view for the specified matrix model and the specified group
+  * column.
+  * @param <code>m</code> the specified matrix model.
+  * @param <code>col</code> the specified group column.
+  */
+  public GroupedMatrixView(MatrixModel m, int col)
+  {
+    model    = m;
+    groupCol = col;
+    model.addMatrixListener(this);
+    rebuild();
+  }
+
+ /**
+  * Gets the underlying matrix model.
+  * @return an underlying matrix model.
+  */
+  public MatrixModel getModel() {
+    return model;
+  }
+
+ /**
+  * Gets the group column.
+  * @return a group column.
+  */
+  public int getGroupColumn() {
+    return groupCol;
+  }
+
+ /**
+  * Gets the number of rows. The number includes the group header rows.
+  * @return a number of rows.
+  */
+  public int getRows ()
+  {
+    validate();
+    return count;
+  }
+
+ /**
+  * Gets the number of columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return model.getCols();
+  }
+
+ /**
+  * Sets the aggregate function for the specified column. Use one of the following
+  * constants as the function:
+  * <ul>
+  *   <li>NONE - the column is not aggregated.</li>
+  *   <li>SUM - the header row shows the sum of the group values.</li>
+  *   <li>COUNT - the header row shows the number of the group numeric values.</li>
+  *   <li>MIN - the header row shows the minimal group value.</li>
+  *   <li>MAX - the header row shows the maximal group value.</li>
+  * </ul>
+  * @param <code>col</code> the specified column.
+  * @param <code>f</code> the aggregate function.
+  */
+  public void setAggregate (int col, int f)
+  {
+    if (f < NONE || f > MAX) throw new IllegalArgumentException();
+    if (getAggregate(col) != f)
+    {
+      if (col >= functions.length)
+      {
+        int[] nf = new int[col + 1];
+        System.arraycopy(functions, 0, nf, 0, functions.length);
+        functions = nf;
+      }
+
+      boolean isNew = aggIndex(col) < 0;
+      functions[col] = f;
+      if (isNew)
+      {
+        int[] na = new int[aggCols.length + 1];
+        System.arraycopy(aggCols, 0, na, 0, aggCols.length);
+        na[aggCols.length] = col;
+        aggCols = na;
+        rebuild();
+      }
+
+      validate();
+      for (int i=0; i<groups.size(); i++)
+      {
+        Group g = (Group)groups.elementAt(i);
+        perform(new MatrixEvent(this, g.start, col, null));
+      }
+    }
+  }
+
+ /**
+  * Gets the aggregate function of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return an aggregate function.
+  */
+  public int getAggregate (int col) {
+    return col < functions.length?functions[col]:NONE;
+  }
+
+ /**
+  * Gets the number of groups.
+  * @return a number of groups.
+  */
+  public int getGroupCount () {
+    return groups.size();
+  }
+
+ /**
+  * Gets the key of the specified group. The key is the group column value of the group
+  * rows.
+  * @param <code>g</code> the specified group index.
+  * @return a group key.
+  */
+  public Object getGroupKey (int g)
+  {
+    Object key = group(g).key;
+    return key == NULL_KEY?null:key;
+  }
+
+ /**
+  * Gets the number of underlying model rows of the specified group.
+  * @param <code>g</code> the specified group index.
+  * @return a number of rows.
+  */
+  public int getGroupSize (int g) {
+    return group(g).size;
+  }
+
+ /**
+  * Gets the header row of the specified group.
+  * @param <code>g</code> the specified group index.
+  * @return a header row.
+  */
+  public int getGroupRow (int g)
+  {
+    validate();
+    return group(g).start;
+  }
+
+ /**
+  * Gets the group index for the specified view row.
+  * @param <code>row</code> the specified view row.
+  * @return a group index.
+  */
+  public int getGroup (int row) {
+    return groupAt(row).index;
+  }
+
+ /**
+  * Checks if the specified view row is a group header row.
+  * @param <code>row</code> the specified view row.
+  * @return <code>true</code> if the row is a group header row; <code>false</code>
+  * otherwise.
+  */
+  public boolean isGroupRow (int row) {
+    return groupAt(row).start == row;
+  }
+
+ /**
+  * Checks if the specified group is expanded.
+  * @param <code>g</code> the specified group index.
+  * @return <code>true</code> if the group is expanded; <code>false</code> otherwise.
+  */
+  public boolean isExpanded (int g) {
+    return group(g).isExpanded;
+  }
+
+ /**
+  * Expands or collapses the specified group. The view performs MATRIX_RESIZED event that
+  * says where the group rows have been inserted or removed.
+  * @param <code>g</code> the specified group index.
+  * @param <code>b</code> <code>true</code> to expand the group.
+  */
+  public void setExpanded (int g, boolean b)
+  {
+    Group gr = group(g);
+    if (gr.isExpanded != b)
+    {
+      validate();
+      int prevCount = count;
+      gr.isExpanded = b;
+      isValid = false;
+      perform(new MatrixEvent(this, prevCount, getCols(), gr.start + 1));
+    }
+  }
+
+ /**
+  * Gets the aggregate value of the specified group column for the specified aggregate
+  * function. The column has to be aggregated (see <code>setAggregate</code> method).
+  * @param <code>g</code> the specified group index.
+  * @param <code>col</code> the specified column.
+  * @param <code>f</code> the specified aggregate function.
+  * @return an aggregate value. The method returns <code>NaN</code> for sum, min and max
+  * functions if the group doesn't have numeric values of the column.
+  */
+  public double getValue (int g, int col, int f)
+  {
+    int k = aggIndex(col);
+    if (k < 0) throw new IllegalArgumentException();
+    Group gr = group(g);
+    int   n  = gr.counts[k];
+    switch (f)
+    {
+      case SUM  : return n > 0?gr.sums[k]:Double.NaN;
+      case COUNT: return n;
+      case MIN  : return n > 0?gr.mins[k][1]:Double.NaN;
+      case MAX  : return n > 0?gr.maxs[k][1]:Double.NaN;
+    }
+    throw new IllegalArgumentException();
+  }
+
+ /**
+  * Gets the underlying model row for the specified view row.
+  * @param <code>row</code> the specified view row.
+  * @return an underlying model row or <code>-1</code> if the row is a group header row.
+  */
+  public int getModelRow (int row)
+  {
+    Group g = groupAt(row);
+    return row == g.start?-1:g.members[row - g.start - 1];
+  }
+
+ /**
+  * Gets the view row for the specified underlying model row.
+  * @param <code>row</code> the specified model row.
+  * @return a view row or <code>-1</code> if the row group is collapsed.
+  */
+  public int getViewRow (int row)
+  {
+    validate();
+    Group g = groupOf[row];
+    return g.isExpanded?g.start + 1 + g.find(row):-1;
+  }
+
+ /**
+  * Gets the value of the specified cell. For a group header row the method returns the
+  * group key for the group column, the aggregate value for aggregated columns and
+  * <code>null</code> for other columns.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col)
+  {
+    Group g = groupAt(row);
+    if (row > g.start) return model.get(g.members[row - g.start - 1], col);
+
+    if (col == groupCol) return g.key == NULL_KEY?null:g.key;
+    int f = getAggregate(col);
+    if (f == NONE) return null;
+    if (f == COUNT) return new Integer(g.counts[aggIndex(col)]);
+    double v = getValue(g.index, col, f);
+    return Double.isNaN(v)?null:new Double(v);
+  }
+
+ /**
+  * Updates the specified cell of the underlying model with the specified value. It is
+  * impossible to update a group header row cell, the method throws
+  * <code>UnsupportedOperationException</code> in this case.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @param <code>obj</code> the specified value to update the cell value.
+  */
+  public void put(int row, int col, Object obj)
+  {
+    int mr = getModelRow(row);
+    if (mr < 0) throw new UnsupportedOperationException();
+    model.put(mr, col, obj);
+  }
+
+  public void matrixResized(MatrixEvent e)
+  {
+    int pr = e.getPrevSize().width, rows = model.getRows(), row = e.getResizedRow();
+    validate();
+    int prevCount = count;
+    if (rows > pr && (row < 0 || row == pr) && modelRows == pr)
+    {
+      grow(rows);
+      int from = count;
+      for (int i=pr; i<rows; i++)
+      {
+        Group g = join(i);
+        if (g.start < from) from = g.start;
+      }
+      modelRows = rows;
+      isValid   = false;
+      validate();
+      if (prevCount != count || e.getPrevSize().height != getCols())
+        perform(new MatrixEvent(this, prevCount, e.getPrevSize().height));
+      if (count > from) perform(new MatrixEvent(this, from, 0, count - from, getCols()));
+    }
+    else
+    {
+      rebuild();
+      perform(new MatrixEvent(this, prevCount, e.getPrevSize().height));
+    }
+  }
+
+  public void cellModified(MatrixEvent e)
+  {
+    java.awt.Rectangle r = e.getModifiedRange();
+    validate();
+
+    int     from = Integer.MAX_VALUE, to = -1, moved = 0;
+    int[]   rows = null;
+    boolean isGroupCol = groupCol >= r.y && groupCol < r.y + r.height;
+    for (int i=r.x; i<r.x + r.width; i++)
+    {
+      Group g = groupOf[i];
+      if (isGroupCol && !g.key.equals(key(i)))
+      {
+        if (rows == null) rows = new int[r.width];
+        rows[moved++] = i;
+      }
+      else
+      {
+        boolean isAgg = false;
+        for (int k=0; k<aggCols.length; k++)
+          if (aggCols[k] >= r.y && aggCols[k] < r.y + r.height)
+          {
+            g.update(k, slots[i], value(i, aggCols[k]));
+            isAgg = true;
+          }
+
+        int vr = g.isExpanded?g.start + 1 + g.find(i):g.start;
+        if (e.getID() == MatrixEvent.CELL_MODIFIED)
+        {
+          if (g.isExpanded) perform(new MatrixEvent(this, vr, r.y, e.getPrevValue()));
+          if (isAgg) perform(new MatrixEvent(this, g.start, r.y, null));
+          return;
+        }
+
+        if (isAgg && g.start < from) from = g.start;
+        if (vr < from) from = vr;
+        if (vr > to) to = vr;
+      }
+    }
+
+    if (to >= from) perform(new MatrixEvent(this, from, r.y, to - from + 1, r.height));
+    if (moved > 0)
+    {
+      for (int i=0; i<moved; i++) move(rows[i]);
+      prune();
+    }
+  }
+
+ /**
+  * Adds the matrix listener to be notified whenever the view cell has been updated or
+  * the view dimension has been changed.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener m) {
+    if (support == null) support = new Vector(1);
+    if (!support.contains(m)) support.addElement(m);
+  }
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void removeMatrixListener (MatrixListener m) {
+    if (support != null) support.removeElement(m);
+  }
+
+ /**
+  * Fires the specified event to registered matrix listeners.
+  * @param <code>e</code> the specified event.
+  */
+  protected void perform(MatrixEvent e)
+  {
+    if (support != null)
+    {
+      for (int i=0; i<support.size(); i++)
+      {
+        MatrixListener l = (MatrixListener)support.elementAt(i);
+        if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+        else l.cellModified(e);
+      }
+    }
+  }
+
+ /**
+  * Computes the header rows and the indexes of the groups.
+  */
+  private void validate()
+  {
+    if (!isValid)
+    {
+      int n = 0;
+      for (int i=0; i<groups.size(); i++)
+      {
+        Group g = (Group)groups.elementAt(i);
+        g.index = i;
+        g.start = n;
+        n += g.isExpanded?g.size + 1:1;
+      }
+      count   = n;
+      isValid = true;
+    }
+  }
+
+  private void rebuild()
+  {
+    Hashtable expanded = new Hashtable();
+    for (int i=0; i<groups.size(); i++)
+    {
+      Group g = (Group)groups.elementAt(i);
+      if (!g.isExpanded) expanded.put(g.key, g);
+    }
+
+    groups.removeAllElements();
+    keys.clear();
+    modelRows = model.getRows();
+    groupOf   = new Group[modelRows];
+    slots     = new int[modelRows];
+    for (int i=0; i<modelRows; i++) join(i);
+    for (int i=0; i<groups.size(); i++)
+    {
+      Group g = (Group)groups.elementAt(i);
+      g.isExpanded = !expanded.containsKey(g.key);
+    }
+    isValid = false;
+  }
+
+  private void grow(int rows)
+  {
+    if (rows > groupOf.length)
+    {
+      int     n  = Math.max(rows, groupOf.length + groupOf.length/2);
+      Group[] ng = new Group[n];
+      int[]   ns = new int[n];
+      System.arraycopy(groupOf, 0, ng, 0, modelRows);
+      System.arraycopy(slots, 0, ns, 0, modelRows);
+      groupOf = ng;
+      slots   = ns;
+    }
+  }
+
+ /**
+  * Adds the specified model row to the group of its key, the group is created if it
+  * doesn't exist. The method returns the group, the group header row is the row where the
+  * group starts in the view before the change.
+  */
+  private Group join(int row)
+  {
+    Object key = key(row);
+    Group  g   = (Group)keys.get(key);
+    if (g == null)
+    {
+      g = new Group(key, aggCols.length);
+      int lo = 0, hi = groups.size();
+      while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (compare(((Group)groups.elementAt(mid)).key, key) < 0) lo = mid + 1;
+        else                                                     hi = mid;
+      }
+      groups.insertElementAt(g, lo);
+      keys.put(key, g);
+      g.start = lo < groups.size() - 1?((Group)groups.elementAt(lo + 1)).start:count;
+      isValid = false;
+    }
+
+    groupOf[row] = g;
+    slots[row]   = g.add(row);
+    for (int k=0; k<aggCols.length; k++) g.update(k, slots[row], value(row, aggCols[k]));
+    if (g.isExpanded) isValid = false;
+    return g;
+  }
+
+ /**
+  * Removes the specified model row from its group. An empty group is kept until the
+  * <code>prune</code> method is called, so a row that moves back keeps the group state.
+  */
+  private void leave(int row)
+  {
+    Group g = groupOf[row];
+    for (int k=0; k<aggCols.length; k++) g.update(k, slots[row], Double.NaN);
+    g.remove(row, slots[row]);
+    groupOf[row] = null;
+    isValid = false;
+  }
+
+ /**
+  * Moves the specified model row to the group of its new key. The view performs
+  * MATRIX_RESIZED event for the removed row and for the inserted row (and the inserted
+  * header row if the group is new), the header rows of the groups are updated with
+  * RANGE_MODIFIED events.
+  */
+  private void move(int row)
+  {
+    Group old = groupOf[row];
+    int   prevCount = count, at = old.isExpanded?old.start + 1 + old.find(row):-1;
+    leave(row);
+    validate();
+    if (count != prevCount) perform(new MatrixEvent(this, prevCount, getCols(), at));
+
+    boolean isNew = !keys.containsKey(key(row));
+    Group   g     = join(row);
+    prevCount = count;
+    validate();
+    at = isNew?g.start:g.start + 1 + g.find(row);
+    if (count != prevCount) perform(new MatrixEvent(this, prevCount, getCols(), at));
+
+    if (aggCols.length > 0)
+    {
+      perform(new MatrixEvent(this, old.start, 0, 1, getCols()));
+      if (!isNew) perform(new MatrixEvent(this, g.start, 0, 1, getCols()));
+    }
+  }
+
+ /**
+  * Removes the empty groups. The view performs MATRIX_RESIZED event for every removed
+  * group header row.
+  */
+  private void prune()
+  {
+    for (int i=groups.size() - 1; i>=0; i--)
+    {
+      Group g = (Group)groups.elementAt(i);
+      if (g.size == 0)
+      {
+        validate();
+        int prevCount = count, at = g.start;
+        groups.removeElementAt(i);
+        keys.remove(g.key);
+        isValid = false;
+        validate();
+        perform(new MatrixEvent(this, prevCount, getCols(), at));
+      }
+    }
+  }
+
+  private Group group(int g)
+  {
+    validate();
+    return (Group)groups.elementAt(g);
+  }
+
+  private Group groupAt(int row)
+  {
+    validate();
+    if (row < 0 || row >= count) throw new ArrayIndexOutOfBoundsException(row);
+    int lo = 0, hi = groups.size() - 1;
+    while (lo < hi)
+    {
+      int mid = (lo + hi + 1) >>> 1;
+      if (((Group)groups.elementAt(mid)).start <= row) lo = mid;
+      else                                            hi = mid - 1;
+    }
+    return (Group)groups.elementAt(lo);
+  }
+
+  private int aggIndex(int col)
+  {
+    for (int k=0; k<aggCols.length; k++)
+      if (aggCols[k] == col) return k;
+    return -1;
+  }
+
+  private Object key(int row)
+  {
+    Object key = model.get(row, groupCol);
+    return key == null?NULL_KEY:key;
+  }
+
+  private double value(int row, int col)
+  {
+    if (model instanceof TypedMatrixModel)
+    {
+      TypedMatrixModel tm = (TypedMatrixModel)model;
+      if (tm.getType(col) != TypedMatrixModel.STRING) return tm.getDouble(row, col);
+    }
+    Object o = model.get(row, col);
+    return o instanceof Number?((Number)o).doubleValue():Double.NaN;
+  }
+
+  private static int compare(Object a, Object b)
+  {
+    if (a == b)        return 0;
+    if (a == NULL_KEY) return -1;
+    if (b == NULL_KEY) return 1;
+    if (a instanceof Comparable && a.getClass() == b.getClass()) return ((Comparable)a).compareTo(b);
+    return a.toString().compareTo(b.toString());
+  }
+
+ /**
+  * This class keeps the rows of a group and the group aggregates. Every group row gets a
+  * slot, the aggregated values of the row are stored in the slot leaves of min and max
+  * segment trees, the sum and count are updated by the difference.
+  */
+  private static class Group
+  {
+    Object     key;
+    int        index, start, size, used, free;
+    int[]      members = new int[4], freeSlots = new int[4];
+    boolean    isExpanded = true;
+    double[]   sums;
+    int[]      counts;
+    double[][] values, mins, maxs;
+
+    Group(Object key, int aggs)
+    {
+      this.key = key;
+      sums   = new double[aggs];
+      counts = new int[aggs];
+      values = new double[aggs][];
+      mins   = new double[aggs][];
+      maxs   = new double[aggs][];
+      for (int k=0; k<aggs; k++) init(k, 4);
+    }
+
+    int add(int row)
+    {
+      if (size == members.length)
+      {
+        int[] nm = new int[size * 2];
+        System.arraycopy(members, 0, nm, 0, size);
+        members = nm;
+      }
+      int p = (size > 0 && members[size - 1] > row)?find(row):size;
+      System.arraycopy(members, p, members, p + 1, size - p);
+      members[p] = row;
+      size++;
+
+      if (free > 0) return freeSlots[--free];
+      if (values.length > 0 && used == values[0].length)
+        for (int k=0; k<values.length; k++) init(k, used * 2);
+      return used++;
+    }
+
+    void remove(int row, int slot)
+    {
+      int p = find(row);
+      System.arraycopy(members, p + 1, members, p, size - p - 1);
+      size--;
+      if (free == freeSlots.length)
+      {
+        int[] nf = new int[free * 2];
+        System.arraycopy(freeSlots, 0, nf, 0, free);
+        freeSlots = nf;
+      }
+      freeSlots[free++] = slot;
+    }
+
+    void update(int k, int slot, double v)
+    {
+      double[] vals = values[k], min = mins[k], max = maxs[k];
+      double   prev = vals[slot];
+      if (Double.isNaN(prev) && Double.isNaN(v)) return;
+      if (!Double.isNaN(prev))
+      {
+        sums[k] -= prev;
+        counts[k]--;
+      }
+      if (!Double.isNaN(v))
+      {
+        sums[k] += v;
+        counts[k]++;
+      }
+      if (counts[k] == 0) sums[k] = 0;
+
+      vals[slot] = v;
+      int i = vals.length + slot;
+      min[i] = Double.isNaN(v)?Double.POSITIVE_INFINITY:v;
+      max[i] = Double.isNaN(v)?Double.NEGATIVE_INFINITY:v;
+      for (i >>= 1; i > 0; i >>= 1)
+      {
+        min[i] = Math.min(min[2*i], min[2*i + 1]);
+        max[i] = Math.max(max[2*i], max[2*i + 1]);
+      }
+    }
+
+   /**
+    * Sets the slots capacity of the specified aggregate and rebuilds its trees.
+    */
+    void init(int k, int capacity)
+    {
+      double[] vals = new double[capacity];
+      Arrays.fill(vals, Double.NaN);
+      if (values[k] != null) System.arraycopy(values[k], 0, vals, 0, values[k].length);
+
+      double[] min = new double[capacity * 2], max = new double[capacity * 2];
+      for (int i=0; i<capacity; i++)
+      {
+        min[capacity + i] = Double.isNaN(vals[i])?Double.POSITIVE_INFINITY:vals[i];
+        max[capacity + i] = Double.isNaN(vals[i])?Double.NEGATIVE_INFINITY:vals[i];
+      }
+      for (int i=capacity - 1; i>0; i--)
+      {
+        min[i] = Math.min(min[2*i], min[2*i + 1]);
+        max[i] = Math.max(max[2*i], max[2*i + 1]);
+      }
+      values[k] = vals;
+      mins[k]   = min;
+      maxs[k]   = max;
+    }
+
+    int find(int row)
+    {
+      int lo = 0, hi = size;
+      while (lo < hi)
+      {
+        int mid = (lo + hi) >>> 1;
+        if (members[mid] < row) lo = mid + 1;
+        else                    hi = mid;
+      }
+      return lo;
+    }
+  }
+}
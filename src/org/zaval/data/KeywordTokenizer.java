@@ -0,0 +1,243 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+/**
+ * This class is a simple tokenizer that can be used to highlight a text of a configuration
+ * or a query language. The tokenizer finds keywords, numbers, quoted strings, single line
+ * comments and multi-line block comments. Use <code>setLineComment</code>,
+ * <code>setBlockComment</code> and <code>setQuotes</code> methods to define the language
+ * syntax. For example, the following code creates a tokenizer for SQL:
+ * <pre>
+ *   KeywordTokenizer t = new KeywordTokenizer(new String[] { "select", "from", "where" }, true);
+ *   t.setLineComment("--");
+ *   t.setBlockComment("/*", "*&#47;");
+ * </pre>
+ */
+public class KeywordTokenizer
+implements TextTokenizer
+{
+ /**
+  * The keyword span style.
+  */
+  public static final int KEYWORD = 1;
+
+ /**
+  * The comment span style.
+  */
+  public static final int COMMENT = 2;
+
+ /**
+  * The string span style.
+  */
+  public static final int STRING = 3;
+
+ /**
+  * The number span style.
+  */
+  public static final int NUMBER = 4;
+
+  private static final int IN_COMMENT = 1;
+
+  private char[][][] keywords;
+  private boolean    ignoreCase;
+  private char[]     lineComment, blockStart, blockEnd, quotes = { '"', '\'' };
+
+ /**
+  * Constructs the tokenizer with the specified keywords.
+  * @param <code>words</code> the specified keywords.
+  * @param <code>ignoreCase</code> the specified keywords case sensitivity.
+  */
+  public KeywordTokenizer(String[] words, boolean ignoreCase)
+  {
+    this.ignoreCase = ignoreCase;
+    int max = 0;
+    for (int i=0; i<words.length; i++) max = Math.max(max, words[i].length());
+    int[] counts = new int[max + 1];
+    for (int i=0; i<words.length; i++) counts[words[i].length()]++;
+    keywords = new char[max + 1][][];
+    for (int i=0; i<=max; i++) keywords[i] = new char[counts[i]][];
+    for (int i=0; i<words.length; i++)
+    {
+      String w = ignoreCase?words[i].toLowerCase():words[i];
+      keywords[w.length()][--counts[w.length()]] = w.toCharArray();
+    }
+  }
+
+ /**
+  * Sets the specified single line comment prefix.
+  * @param <code>s</code> the specified comment prefix. Use <code>null</code> if the
+  * language doesn't have single line comments.
+  */
+  public void setLineComment(String s) {
+    lineComment = (s == null)?null:s.toCharArray();
+  }
+
+ /**
+  * Sets the specified block comment start and end.
+  * @param <code>start</code> the specified comment start. Use <code>null</code> if the
+  * language doesn't have block comments.
+  * @param <code>end</code> the specified comment end.
+  */
+  public void setBlockComment(String start, String end)
+  {
+    blockStart = (start == null)?null:start.toCharArray();
+    blockEnd   = (start == null)?null:end.toCharArray();
+  }
+
+ /**
+  * Sets the specified string quote characters.
+  * @param <code>q</code> the specified quote characters.
+  */
+  public void setQuotes(String q) {
+    quotes = q.toCharArray();
+  }
+
+  public int tokenize(TextSegment line, int state, TextTokens tokens)
+  {
+    char[] a   = line.getArray();
+    int    off = line.getOffset(), len = line.getCount(), i = 0;
+
+    while (i < len)
+    {
+      if (state == IN_COMMENT)
+      {
+        int e = indexOf(a, off, len, i, blockEnd);
+        int end = (e < 0)?len:e + blockEnd.length;
+        tokens.addSpan(i, end, COMMENT);
+        if (e < 0) return state;
+        state = 0;
+        i = end;
+        continue;
+      }
+
+      char ch = a[off + i];
+      if (blockStart != null && startsWith(a, off, len, i, blockStart))
+      {
+        int e = indexOf(a, off, len, i + blockStart.length, blockEnd);
+        int end = (e < 0)?len:e + blockEnd.length;
+        tokens.addSpan(i, end, COMMENT);
+        if (e < 0) return IN_COMMENT;
+        i = end;
+      }
+      else
+      if (lineComment != null && startsWith(a, off, len, i, lineComment))
+      {
+        tokens.addSpan(i, len, COMMENT);
+        return 0;
+      }
+      else
+      if (isQuote(ch))
+      {
+        int j = i + 1;
+        while (j < len && a[off + j] != ch) j += (a[off + j] == '\\')?2:1;
+        j = Math.min(j + 1, len);
+        tokens.addSpan(i, j, STRING);
+        i = j;
+      }
+      else
+      if (Character.isDigit(ch))
+      {
+        int j = i + 1;
+        while (j < len && (Character.isLetterOrDigit(a[off + j]) || a[off + j] == '.')) j++;
+        tokens.addSpan(i, j, NUMBER);
+        i = j;
+      }
+      else
+      if (Character.isJavaIdentifierStart(ch))
+      {
+        int j = i + 1;
+        while (j < len && Character.isJavaIdentifierPart(a[off + j])) j++;
+        if (isKeyword(a, off + i, j - i)) tokens.addSpan(i, j, KEYWORD);
+        i = j;
+      }
+      else i++;
+    }
+    return state;
+  }
+
+  private boolean isKeyword(char[] a, int off, int len)
+  {
+    if (len >= keywords.length) return false;
+    char[][] words = keywords[len];
+    for (int i=0; i<words.length; i++)
+    {
+      char[] w = words[i];
+      int    j = 0;
+      for (; j<len; j++)
+      {
+        char ch = a[off + j];
+        if (ignoreCase) ch = Character.toLowerCase(ch);
+        if (ch != w[j]) break;
+      }
+      if (j == len) return true;
+    }
+    return false;
+  }
+
+  private boolean isQuote(char ch)
+  {
+    for (int i=0; i<quotes.length; i++)
+      if (quotes[i] == ch) return true;
+    return false;
+  }
+
+  private static boolean startsWith(char[] a, int off, int len, int i, char[] s)
+  {
+    if (i + s.length > len) return false;
+    for (int j=0; j<s.length; j++)
+      if (a[off + i + j] != s[j]) return false;
+    return true;
+  }
+
+  private static int indexOf(char[] a, int off, int len, int from, char[] s)
+  {
+    for (int i=from; i + s.length <= len; i++)
+      if (startsWith(a, off, len, i, s)) return i;
+    return -1;
+  }
+}
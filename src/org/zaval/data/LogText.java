@@ -0,0 +1,335 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import org.zaval.data.event.*;
+
+/**
+ * This class is an append-only implementation of <code>TextModel</code> interface that
+ * keeps at most the specified number of lines. The class is intended to show logs: new
+ * text is added to the end of the text with <code>addLine</code> method (or with
+ * <code>write</code> method if the offset is the text length) and when the number of lines
+ * exceeds the maximal number the oldest lines are evicted. The lines are stored with a ring
+ * buffer, so appending and evicting a line take constant time. The listeners get REMOVED
+ * event for the evicted lines and INSERTED event for the appended text. The
+ * <code>remove</code> method throws <code>UnsupportedOperationException</code>.
+ */
+public class LogText
+implements IndexedTextModel, SegmentTextModel, BatchTextModel
+{
+  private String[] slots;
+  private long[]   starts;
+  private int[]    extra;
+  private int      head, count;
+  private long     end;
+
+  private TextBatch           batch = new TextBatch(this);
+
+ /**
+  * Constructs a new empty text with the specified maximal number of lines.
+  * @param <code>maxLines</code> the specified maximal number of lines.
+  */
+  public LogText(int maxLines)
+  {
+    if (maxLines <= 0) throw new IllegalArgumentException();
+    slots  = new String[maxLines];
+    starts = new long[maxLines];
+    extra  = new int[maxLines];
+    clear();
+  }
+
+ /**
+  * Gets the maximal number of lines.
+  * @return a maximal number of lines.
+  */
+  public int getMaxLines() {
+    return slots.length;
+  }
+
+ /**
+  * Adds the specified line to the end of the text. If the text is empty than the line
+  * becomes the first line of the text.
+  * @param <code>s</code> the specified line.
+  */
+  public void addLine (String s) {
+    write((getTextLength() == 0)?s:"\n" + s, getTextLength());
+  }
+
+  public String getLine (int line) {
+    if (line < 0 || line >= count) throw new ArrayIndexOutOfBoundsException(line);
+    return slots[slot(line)];
+  }
+
+  public void getLineChars(int line, TextSegment s) {
+    s.set(getLine(line));
+  }
+
+ /**
+  * Sets the specified text data. The text is divided into lines by '\n' character, only the
+  * last lines are kept if the number of lines exceeds the maximal number of lines.
+  * @param  <code>text</code> the text data.
+  */
+  public void setText (String text)
+  {
+    String old = getText();
+    if (!old.equals(text))
+    {
+      if (old.length() > 0)
+      {
+        clear();
+        TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, old.length());
+        e.setUpdatedLines(0, 0);
+        perform (e);
+      }
+
+      append(text);
+      TextEvent ee = new TextEvent(this, TextEvent.INSERTED, 0, getTextLength());
+      ee.setUpdatedLines(0, getSize());
+      perform(ee);
+    }
+  }
+
+  public String getText ()
+  {
+    StringBuffer buf = new StringBuffer(getTextLength());
+    for (int i=0; i<count; i++)
+    {
+      if (i > 0) buf.append ('\n');
+      buf.append (getLine(i));
+    }
+    return buf.toString();
+  }
+
+  public int getSize() {
+    return count;
+  }
+
+ /**
+  * Appends the specified text at the end of the text. The offset has to be equal to the text
+  * length, otherwise IllegalArgumentException will be thrown. If the number of lines exceeds
+  * the maximal number of lines than the oldest lines are removed before the text is appended.
+  * @param <code>s</code> the text to be appended.
+  * @param <code>offset</code> the offset, it has to be the text length.
+  */
+  public void write (String s, int offset)
+  {
+    if (offset != getTextLength()) throw new IllegalArgumentException();
+    if (s.length() == 0) return;
+
+    int lfs = 0;
+    for (int i=s.indexOf('\n'); i >= 0; i = s.indexOf('\n', i + 1)) lfs++;
+
+    int evict = count + lfs - slots.length;
+    if (evict >= count)
+    {
+      String old = getText();
+      clear();
+      TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, old.length());
+      e.setUpdatedLines(0, 0);
+      perform (e);
+
+      append(old + s);
+      TextEvent ee = new TextEvent(this, TextEvent.INSERTED, 0, getTextLength());
+      ee.setUpdatedLines(0, getSize());
+      perform(ee);
+    }
+    else
+    {
+      if (evict > 0)
+      {
+        int size = getLineOffset(evict);
+        head   = slot(evict);
+        count -= evict;
+        TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, size);
+        e.setUpdatedLines(0, 0);
+        perform (e);
+      }
+
+      int first = count - 1;
+      offset = getTextLength();
+      append(s);
+      TextEvent e = new TextEvent(this, TextEvent.INSERTED, offset, s.length());
+      e.setUpdatedLines(first, lfs + 1);
+      perform(e);
+    }
+  }
+
+  public void write (char ch, int offset) {
+    write (String.valueOf(ch), offset);
+  }
+
+ /**
+  * The method is not supported with the implementation.
+  * @param <code>offset</code> the offset where the text will be removed.
+  * @param <code>size</code> the size of the part that is going to be removed.
+  */
+  public void remove (int offset, int size) {
+    throw new UnsupportedOperationException();
+  }
+
+  public int getTextLength() {
+    return (int)(end - starts[head]);
+  }
+
+  public int getLineOffset(int line) {
+    return (int)(starts[slot(line)] - starts[head]);
+  }
+
+  public int getLineByOffset(int offset)
+  {
+    int lo = 0, hi = count - 1;
+    while (lo < hi)
+    {
+      int mid = (lo + hi + 1) >>> 1;
+      if (getLineOffset(mid) <= offset) lo = mid;
+      else                              hi = mid - 1;
+    }
+    return lo;
+  }
+
+ /**
+  * Adds the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  public void addTextListener(TextListener l) {
+    batch.addListener(l);
+  }
+
+ /**
+  * Removes the specified text listener.
+  * @param <code>l</code> the text listener.
+  * @see      org.zaval.data.event.TextListener
+  * @see      org.zaval.data.event.TextEvent
+  */
+  public void removeTextListener(TextListener l) {
+    batch.removeListener(l);
+  }
+
+  public int getExtraChar (int i) {
+    return extra[slot(i)];
+  }
+
+  public void setExtraChar (int i, int ch) {
+    extra[slot(i)] = ch;
+  }
+
+ /**
+  * Starts the text update. The text events are not fired until the update is finished
+  * with <code>endUpdate</code> method.
+  */
+  public void beginUpdate() {
+    batch.begin(getSize());
+  }
+
+ /**
+  * Finishes the text update and fires one text event that covers all modifications
+  * that have been performed during the update.
+  */
+  public void endUpdate() {
+    batch.end();
+  }
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started; <code>false</code>
+  * otherwise.
+  */
+  public boolean isUpdating() {
+    return batch.isUpdating();
+  }
+
+ /**
+  * Fires the specified text event to all text listeners. If the text update has been
+  * started than the event is added to the update.
+  * @param <code>e</code> the text event that has to be fired.
+  */
+  void perform (TextEvent e) {
+    batch.perform(e, getSize());
+  }
+
+  private int slot(int line) {
+    int i = head + line;
+    return (i >= slots.length)?i - slots.length:i;
+  }
+
+  private void clear()
+  {
+    long start = (count == 0)?0:end + 1;
+    head  = 0;
+    count = 1;
+    slots [0] = "";
+    starts[0] = start;
+    extra [0] = 0;
+    end = start;
+  }
+
+  private void append(String s)
+  {
+    int last = slot(count - 1), from = 0;
+    for (int i=s.indexOf('\n'); ; i = s.indexOf('\n', from))
+    {
+      String part = s.substring(from, i < 0?s.length():i);
+      if (from == 0) slots[last] = slots[last] + part;
+      else
+      {
+        if (count == slots.length)
+        {
+          head = slot(1);
+          count--;
+        }
+        last = slot(count++);
+        slots [last] = part;
+        starts[last] = end + 1;
+      }
+      extra[last] = 0;
+      end = starts[last] + slots[last].length();
+
+      if (i < 0) break;
+      from = i + 1;
+    }
+  }
+}
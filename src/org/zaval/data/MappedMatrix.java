@@ -0,0 +1,541 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a read-only implementation of <code>TypedMatrixModel</code> interface that
+ * reads a matrix snapshot file through <code>FileChannel.map</code> method. Opening a snapshot
+ * doesn't read the cells, the columns blocks are mapped into memory and the cells are read
+ * directly from the mapped pages, so only the pages of the rows that are really accessed
+ * (for instance, the rows that are visible in a grid) are loaded by the operating system.
+ * The strings are decoded only when it is requested, the last decoded strings are cached.
+ * <p>
+ * The snapshot file is created with <code>write</code> method that can save any
+ * <code>MatrixModel</code>. The file has the following structure (all numbers are big-endian,
+ * all blocks are aligned by eight bytes):
+ * <ul>
+ *   <li>
+ *     The header: the magic number, the number of rows, the number of columns, a reserved
+ *     int value and the columns descriptors. Every column descriptor consists of the column
+ *     type, the dictionary size, the column block offset, the dictionary block offset and the
+ *     dictionary block length.
+ *   </li>
+ *   <li>
+ *     The columns blocks. INT column block is an array of int values, LONG and DOUBLE column
+ *     blocks are arrays of long and double values, STRING column block is an array of int
+ *     dictionary codes where zero code means <code>null</code> value and code <code>k</code>
+ *     means the dictionary string <code>k-1</code>.
+ *   </li>
+ *   <li>
+ *     The dictionaries blocks. A dictionary block starts with <code>(size + 1)</code> long
+ *     offsets of the UTF-8 encoded strings (relatively the strings bytes start) that are
+ *     followed by the strings bytes.
+ *   </li>
+ * </ul>
+ * The numeric getters read a string cell that is not a number as zero, like
+ * <code>ColumnMatrix</code> does. The <code>put</code> methods throw
+ * <code>UnsupportedOperationException</code>.
+ */
+public class MappedMatrix
+implements TypedMatrixModel
+{
+  private static final int MAGIC       = 0x5A4D5831;
+  private static final int HEADER_SIZE = 16;
+  private static final int COLUMN_SIZE = 32;
+  private static final int CACHE_SIZE  = 1024;
+
+  private RandomAccessFile file;
+  private int              rows, cols;
+  private int[]            types;
+  private Buffer[]         columns;
+  private LongBuffer[]     dictOffsets;
+  private ByteBuffer[]     dictBytes;
+
+  private int[]    cacheCols   = new int[CACHE_SIZE];
+  private int[]    cacheCodes  = new int[CACHE_SIZE];
+  private String[] cacheValues = new String[CACHE_SIZE];
+  private byte[]   strBuf      = new byte[64];
+
+ /**
+  * Opens the specified snapshot file.
+  * @param <code>f</code> the specified snapshot file.
+  * @throws IOException if an I/O error occurs or the file is not a matrix snapshot.
+  */
+  public MappedMatrix(File f)
+  throws IOException
+  {
+    file = new RandomAccessFile(f, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      if (channel.size() < HEADER_SIZE) throw new IOException("Bad matrix snapshot");
+
+      ByteBuffer h = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      if (h.getInt(0) != MAGIC) throw new IOException("Bad matrix snapshot");
+      rows = h.getInt(4);
+      cols = h.getInt(8);
+
+      types       = new int[cols];
+      columns     = new Buffer[cols];
+      dictOffsets = new LongBuffer[cols];
+      dictBytes   = new ByteBuffer[cols];
+      h = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long)cols * COLUMN_SIZE);
+      for (int i=0; i<cols; i++)
+      {
+        int  p          = i * COLUMN_SIZE;
+        int  dictSize   = h.getInt(p + 4);
+        long dataOffset = h.getLong(p + 8);
+        types[i] = h.getInt(p);
+        switch (types[i])
+        {
+          case INT   :
+          case STRING: columns[i] = map(channel, dataOffset, rows * 4L).asIntBuffer(); break;
+          case LONG  : columns[i] = map(channel, dataOffset, rows * 8L).asLongBuffer(); break;
+          case DOUBLE: columns[i] = map(channel, dataOffset, rows * 8L).asDoubleBuffer(); break;
+          default    : throw new IOException("Bad matrix snapshot");
+        }
+
+        if (types[i] == STRING)
+        {
+          long dictOffset = h.getLong(p + 16);
+          long dictLength = h.getLong(p + 24);
+          long index      = (dictSize + 1L) * 8;
+          dictOffsets[i] = map(channel, dictOffset, index).asLongBuffer();
+          dictBytes  [i] = map(channel, dictOffset + index, dictLength - index);
+        }
+      }
+    }
+    catch (IOException e) {
+      file.close();
+      throw e;
+    }
+
+    for (int i=0; i<CACHE_SIZE; i++) cacheCodes[i] = -1;
+  }
+
+ /**
+  * Closes the snapshot file and drops the references to the mapped buffers and the cached
+  * strings. Note that a mapped region is not unmapped when its channel is closed, the file
+  * stays mapped (and can't be deleted on some platforms) until the buffers are garbage
+  * collected. The cells must not be accessed after the matrix has been closed.
+  * @throws IOException if an I/O error occurs.
+  */
+  public void close()
+  throws IOException
+  {
+    columns     = null;
+    dictOffsets = null;
+    dictBytes   = null;
+    for (int i=0; i<CACHE_SIZE; i++)
+    {
+      cacheCodes [i] = -1;
+      cacheValues[i] = null;
+    }
+    file.close();
+  }
+
+ /**
+  * Gets the number of rows.
+  * @return a number of rows.
+  */
+  public int getRows () {
+    return rows;
+  }
+
+ /**
+  * Gets the number of columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return cols;
+  }
+
+ /**
+  * Gets the type of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return a column type.
+  */
+  public int getType (int col) {
+    return types[col];
+  }
+
+ /**
+  * Gets the value of the specified cell. Numeric values are wrapped with the
+  * appropriate <code>java.lang.Number</code> classes.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col)
+  {
+    switch (types[col])
+    {
+      case INT   : return new Integer(((IntBuffer)columns[col]).get(row));
+      case LONG  : return new Long(((LongBuffer)columns[col]).get(row));
+      case DOUBLE: return new Double(((DoubleBuffer)columns[col]).get(row));
+      default    : return getString(row, col);
+    }
+  }
+
+ /**
+  * Gets the value of the specified cell as int value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public int getInt(int row, int col)
+  {
+    switch (types[col])
+    {
+      case INT   : return ((IntBuffer)columns[col]).get(row);
+      case LONG  : return (int)((LongBuffer)columns[col]).get(row);
+      case DOUBLE: return (int)((DoubleBuffer)columns[col]).get(row);
+      default    : return (int)parse(getString(row, col));
+    }
+  }
+
+ /**
+  * Gets the value of the specified cell as long value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public long getLong(int row, int col)
+  {
+    switch (types[col])
+    {
+      case INT   : return ((IntBuffer)columns[col]).get(row);
+      case LONG  : return ((LongBuffer)columns[col]).get(row);
+      case DOUBLE: return (long)((DoubleBuffer)columns[col]).get(row);
+      default    : return (long)parse(getString(row, col));
+    }
+  }
+
+ /**
+  * Gets the value of the specified cell as double value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public double getDouble(int row, int col)
+  {
+    switch (types[col])
+    {
+      case INT   : return ((IntBuffer)columns[col]).get(row);
+      case LONG  : return ((LongBuffer)columns[col]).get(row);
+      case DOUBLE: return ((DoubleBuffer)columns[col]).get(row);
+      default    : return parse(getString(row, col));
+    }
+  }
+
+ /**
+  * Gets the value of the specified cell as string value. The string is decoded from the
+  * mapped file if it is not cached.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public synchronized String getString(int row, int col)
+  {
+    switch (types[col])
+    {
+      case INT   : return Integer.toString(((IntBuffer)columns[col]).get(row));
+      case LONG  : return Long.toString(((LongBuffer)columns[col]).get(row));
+      case DOUBLE: return Double.toString(((DoubleBuffer)columns[col]).get(row));
+    }
+
+    int code = ((IntBuffer)columns[col]).get(row);
+    if (code == 0) return null;
+
+    int slot = ((code * 31) ^ col) & (CACHE_SIZE - 1);
+    if (cacheCodes[slot] == code && cacheCols[slot] == col) return cacheValues[slot];
+
+    LongBuffer offsets = dictOffsets[col];
+    int start = (int)offsets.get(code - 1);
+    int len   = (int)offsets.get(code) - start;
+    if (strBuf.length < len) strBuf = new byte[len];
+    ByteBuffer bytes = dictBytes[col];
+    for (int i=0; i<len; i++) strBuf[i] = bytes.get(start + i);
+
+    String s = null;
+    try {
+      s = new String(strBuf, 0, len, "UTF-8");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+
+    cacheCols  [slot] = col;
+    cacheCodes [slot] = code;
+    cacheValues[slot] = s;
+    return s;
+  }
+
+ /**
+  * Updates the specified cell with the specified value. The matrix is read-only, so the
+  * method throws <code>UnsupportedOperationException</code>.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>o</code> the specified value.
+  */
+  public void put(int row, int col, Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Updates the specified cell with the specified int value. The matrix is read-only, so the
+  * method throws <code>UnsupportedOperationException</code>.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  public void putInt(int row, int col, int v) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Updates the specified cell with the specified long value. The matrix is read-only, so the
+  * method throws <code>UnsupportedOperationException</code>.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  public void putLong(int row, int col, long v) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Updates the specified cell with the specified double value. The matrix is read-only, so the
+  * method throws <code>UnsupportedOperationException</code>.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  public void putDouble(int row, int col, double v) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Adds the matrix listener. The model is never changed, so the listener is not notified.
+  * @param <code>l</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener l) {}
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>l</code> the matrix listener.
+  */
+  public void removeMatrixListener(MatrixListener l) {}
+
+ /**
+  * Writes a snapshot of the specified matrix model into the given file. If the model
+  * implements <code>TypedMatrixModel</code> interface the columns types of the model
+  * are used, otherwise a column is saved as INT, LONG or DOUBLE column if all the column
+  * cells are not-null <code>Integer</code>, <code>Long</code> or <code>Number</code>
+  * values correspondingly, and as STRING column using values string representation in
+  * all other cases.
+  * @param <code>m</code> the specified matrix model.
+  * @param <code>f</code> the specified file.
+  * @throws IOException if an I/O error occurs.
+  */
+  public static void write(MatrixModel m, File f)
+  throws IOException
+  {
+    int rows = m.getRows(), cols = m.getCols();
+    int[]     types  = new int[cols];
+    Vector[]    dicts  = new Vector[cols];
+    Hashtable[] codes  = new Hashtable[cols];
+    long[]    dataOffsets = new long[cols], dictOffsets = new long[cols], dictLengths = new long[cols];
+
+    long pos = align(HEADER_SIZE + (long)cols * COLUMN_SIZE);
+    for (int i=0; i<cols; i++)
+    {
+      types[i] = (m instanceof TypedMatrixModel)?((TypedMatrixModel)m).getType(i):detectType(m, i);
+      dataOffsets[i] = pos;
+      pos = align(pos + rows * (types[i] == LONG || types[i] == DOUBLE ? 8L : 4L));
+    }
+
+    for (int i=0; i<cols; i++)
+    {
+      if (types[i] == STRING)
+      {
+        Vector    dict  = new Vector();
+        Hashtable index = new Hashtable();
+        long      len   = 0;
+        for (int j=0; j<rows; j++)
+        {
+          String s = string(m, j, i);
+          if (s != null && index.get(s) == null)
+          {
+            index.put(s, new Integer(dict.size() + 1));
+            byte[] b = s.getBytes("UTF-8");
+            dict.addElement(b);
+            len += b.length;
+          }
+        }
+        dicts      [i] = dict;
+        codes      [i] = index;
+        dictOffsets[i] = pos;
+        dictLengths[i] = (dict.size() + 1L) * 8 + len;
+        pos = align(pos + dictLengths[i]);
+      }
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 65536));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(rows);
+      out.writeInt(cols);
+      out.writeInt(0);
+      for (int i=0; i<cols; i++)
+      {
+        out.writeInt (types[i]);
+        out.writeInt (dicts[i] == null?0:dicts[i].size());
+        out.writeLong(dataOffsets[i]);
+        out.writeLong(dictOffsets[i]);
+        out.writeLong(dictLengths[i]);
+      }
+      pad(out, HEADER_SIZE + (long)cols * COLUMN_SIZE);
+
+      TypedMatrixModel tm = (m instanceof TypedMatrixModel)?(TypedMatrixModel)m:null;
+      for (int i=0; i<cols; i++)
+      {
+        for (int j=0; j<rows; j++)
+        {
+          switch (types[i])
+          {
+            case INT   : out.writeInt(tm != null?tm.getInt(j, i):((Number)m.get(j, i)).intValue()); break;
+            case LONG  : out.writeLong(tm != null?tm.getLong(j, i):((Number)m.get(j, i)).longValue()); break;
+            case DOUBLE: out.writeDouble(tm != null?tm.getDouble(j, i):((Number)m.get(j, i)).doubleValue()); break;
+            default    :
+            {
+              String s = string(m, j, i);
+              out.writeInt(s == null?0:((Integer)codes[i].get(s)).intValue());
+            }
+          }
+        }
+        pad(out, rows * (types[i] == LONG || types[i] == DOUBLE ? 8L : 4L));
+      }
+
+      for (int i=0; i<cols; i++)
+      {
+        if (types[i] == STRING)
+        {
+          int  size = dicts[i].size();
+          long offset = 0;
+          out.writeLong(0);
+          for (int j=0; j<size; j++)
+          {
+            offset += ((byte[])dicts[i].elementAt(j)).length;
+            out.writeLong(offset);
+          }
+          for (int j=0; j<size; j++) out.write((byte[])dicts[i].elementAt(j));
+          pad(out, dictLengths[i]);
+        }
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long offset, long size)
+  throws IOException
+  {
+    if (offset < 0 || size < 0 || offset + size > channel.size()) throw new IOException("Bad matrix snapshot");
+    return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+  }
+
+  private static int detectType(MatrixModel m, int col)
+  {
+    int type = INT;
+    for (int i=0; i<m.getRows(); i++)
+    {
+      Object o = m.get(i, col);
+      if (!(o instanceof Number)) return STRING;
+      if (o instanceof Long) type = Math.max(type, LONG);
+      else
+      if (!(o instanceof Integer || o instanceof Short || o instanceof Byte)) type = DOUBLE;
+    }
+    return type;
+  }
+
+  private static String string(MatrixModel m, int row, int col)
+  {
+    if (m instanceof TypedMatrixModel) return ((TypedMatrixModel)m).getString(row, col);
+    Object o = m.get(row, col);
+    return o == null?null:o.toString();
+  }
+
+  private static long align(long pos) {
+    return (pos + 7) & ~7L;
+  }
+
+  private static void pad(DataOutputStream out, long len)
+  throws IOException
+  {
+    for (long i=len; i<align(len); i++) out.write(0);
+  }
+
+  private static double parse(String s)
+  {
+    if (s == null) return 0;
+    s = s.trim();
+    if (s.length() == 0) return 0;
+    try {
+      return Double.valueOf(s).doubleValue();
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
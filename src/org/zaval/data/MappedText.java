@@ -0,0 +1,471 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a read-only implementation of <code>TextModel</code> interface that is
+ * intended to show very large text files. The file is mapped into memory with
+ * <code>FileChannel.map</code> method by segments, so the text is not copied to the heap.
+ * The lines start offsets index is built with a background thread: the first block of
+ * lines is indexed by the constructor and the other lines are added by the indexing thread
+ * that fires INSERTED text event for every indexed block. The indexed lines are published
+ * and the events are performed on the AWT event dispatch thread, so the listeners (text
+ * renders, search and tokenizer services) don't have to be thread-safe. A line is decoded
+ * only when it is requested, the last decoded lines are cached. The extra chars are stored
+ * in a separate array.
+ * <p>
+ * The text model offsets are <code>int</code> values, so the file length is limited with
+ * <code>Integer.MAX_VALUE</code> bytes, the constructor throws <code>IOException</code> for
+ * a larger file.
+ * <p>
+ * The file has to be encoded with an one byte per character encoding or with UTF-8 encoding.
+ * As <code>Text</code> the implementation uses '\n' character as the line separator. The
+ * <code>setText</code>, <code>write</code> and <code>remove</code> methods throw
+ * <code>UnsupportedOperationException</code>.
+ */
+public class MappedText
+implements IndexedTextModel, SegmentTextModel
+{
+  private static final int SEGMENT_SHIFT = 28;
+  private static final int SEGMENT_MASK  = (1 << SEGMENT_SHIFT) - 1;
+  private static final int BLOCK_SIZE    = 65536;
+  private static final int CACHE_SIZE    = 64;
+
+  private RandomAccessFile   file;
+  private MappedByteBuffer[] segments;
+  private long               fileLength;
+  private String             encoding;
+  private boolean            isUTF8;
+
+  private long[]       lineStarts;
+  private int[]        charStarts;
+  private int[]        extra       = new int[1024];
+  private volatile int size, textLength, starts;
+
+  private long    scanPos;
+  private int     scanLines, scanChars;
+  private long[]  scanStarts = new long[1024];
+  private int[]   scanCharStarts;
+  private Thread  indexer;
+
+  private int[]    cacheLines  = new int[CACHE_SIZE];
+  private String[] cacheValues = new String[CACHE_SIZE];
+  private long[]   cacheStamps = new long[CACHE_SIZE];
+  private long     stamp;
+  private byte[]   lineBuf     = new byte[256];
+
+  private TextListenerSupport support;
+
+ /**
+  * Constructs a new text for the specified file. The file is decoded with ISO-8859-1 encoding.
+  * @param <code>f</code> the specified file.
+  * @throws IOException if an I/O error occurs.
+  */
+  public MappedText(File f)
+  throws IOException
+  {
+    this(f, "ISO-8859-1");
+  }
+
+ /**
+  * Constructs a new text for the specified file and the given encoding. The encoding has
+  * to be UTF-8 or an encoding that represents every character with one byte.
+  * @param <code>f</code> the specified file.
+  * @param <code>enc</code> the specified encoding name.
+  * @throws IOException if an I/O error occurs.
+  */
+  public MappedText(File f, String enc)
+  throws IOException
+  {
+    isUTF8 = enc.equalsIgnoreCase("UTF-8") || enc.equalsIgnoreCase("UTF8");
+    if (!isUTF8 && Charset.forName(enc).newEncoder().maxBytesPerChar() != 1.0f)
+      throw new IllegalArgumentException(enc);
+
+    encoding   = enc;
+    file       = new RandomAccessFile(f, "r");
+    fileLength = file.length();
+    if (fileLength > Integer.MAX_VALUE)
+    {
+      file.close();
+      throw new IOException("The file is too large: " + f);
+    }
+    if (isUTF8) scanCharStarts = new int[scanStarts.length];
+
+    FileChannel channel = file.getChannel();
+    segments = new MappedByteBuffer[(int)((fileLength + SEGMENT_MASK) >> SEGMENT_SHIFT)];
+    for (int i=0; i<segments.length; i++)
+    {
+      long start = (long)i << SEGMENT_SHIFT;
+      segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                Math.min(fileLength - start, SEGMENT_MASK + 1));
+    }
+
+    for (int i=0; i<CACHE_SIZE; i++) cacheLines[i] = -1;
+
+    if (index(BLOCK_SIZE))
+    {
+      indexer = new Thread("org.zaval.data.MappedText")
+      {
+        public void run() {
+          while (!isInterrupted() && index(BLOCK_SIZE));
+        }
+      };
+      indexer.setDaemon(true);
+      indexer.start();
+    }
+  }
+
+ /**
+  * Tests if all lines of the file have been indexed.
+  * @return <code>true</code> if the lines index has been completed; <code>false</code>
+  * otherwise.
+  */
+  public boolean isIndexed() {
+    return indexer == null || !indexer.isAlive();
+  }
+
+ /**
+  * Stops the indexing thread and closes the file.
+  * @throws IOException if an I/O error occurs.
+  */
+  public void close()
+  throws IOException
+  {
+    if (indexer != null) indexer.interrupt();
+    file.close();
+  }
+
+ /**
+  * Returns the line at the specified line number. The line is decoded from the mapped
+  * file if it is not cached.
+  * @param  <code>line</code> the specified line number.
+  * @return a line at the specified line number.
+  */
+  public String getLine (int line)
+  {
+    if (line < 0 || line >= size) throw new ArrayIndexOutOfBoundsException(line);
+
+    int free = 0;
+    for (int i=0; i<CACHE_SIZE; i++)
+    {
+      if (cacheLines[i] == line)
+      {
+        cacheStamps[i] = ++stamp;
+        return cacheValues[i];
+      }
+      if (cacheStamps[i] < cacheStamps[free]) free = i;
+    }
+
+    String s = decode(line);
+    cacheLines [free] = line;
+    cacheValues[free] = s;
+    cacheStamps[free] = ++stamp;
+    return s;
+  }
+
+ /**
+  * Copies the characters of the specified line into the specified segment.
+  * @param  <code>line</code> the specified line number.
+  * @param  <code>s</code> the specified segment.
+  */
+  public void getLineChars(int line, TextSegment s) {
+    s.set(getLine(line));
+  }
+
+ /**
+  * The method is not supported with the implementation.
+  * @param  <code>text</code> the text data.
+  */
+  public void setText (String text) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Returns the text of the all indexed lines. Draw attention the method decodes the
+  * whole text, so it should not be used for large files.
+  * @return a text.
+  */
+  public String getText ()
+  {
+    int          lines = size;
+    StringBuffer buf   = new StringBuffer(textLength);
+    for (int i=0; i<lines; i++)
+    {
+      if (i > 0) buf.append ('\n');
+      buf.append (getLine(i));
+    }
+    return buf.toString();
+  }
+
+ /**
+  * Returns the number of indexed lines.
+  * @return a line number.
+  */
+  public int getSize() {
+    return size;
+  }
+
+ /**
+  * The method is not supported with the implementation.
+  * @param <code>s</code> the text to be inserted.
+  * @param <code>offset</code> the offset where the text will be inserted.
+  */
+  public void write (String s, int offset) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * The method is not supported with the implementation.
+  * @param <code>ch</code> the character to be inserted.
+  * @param <code>offset</code> the offset where the character will be inserted.
+  */
+  public void write (char ch, int offset) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * The method is not supported with the implementation.
+  * @param <code>offset</code> the offset where the text will be removed.
+  * @param <code>size</code> the size of the part that is going to be removed.
+  */
+  public void remove (int offset, int size) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Returns the length of the indexed text.
+  * @return a text length.
+  */
+  public int getTextLength() {
+    return textLength;
+  }
+
+  public int getLineOffset(int line) {
+    return isUTF8?charStarts[line]:(int)lineStarts[line];
+  }
+
+  public int getLineByOffset(int offset)
+  {
+    int lo = 0, hi = size - 1;
+    while (lo < hi)
+    {
+      int mid = (lo + hi + 1) >>> 1;
+      if (getLineOffset(mid) <= offset) lo = mid;
+      else                              hi = mid - 1;
+    }
+    return lo;
+  }
+
+ /**
+  * Adds the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  public void addTextListener(TextListener l) {
+    if (support == null) support = new TextListenerSupport();
+    support.addListener(l);
+  }
+
+ /**
+  * Removes the specified text listener.
+  * @param <code>l</code> the text listener.
+  * @see      org.zaval.data.event.TextListener
+  * @see      org.zaval.data.event.TextEvent
+  */
+  public void removeTextListener(TextListener l) {
+    if (support != null) support.removeListener(l);
+  }
+
+  public synchronized int getExtraChar (int i) {
+    return extra[i];
+  }
+
+  public synchronized void setExtraChar (int i, int ch) {
+    extra[i] = ch;
+  }
+
+  private String decode(int line)
+  {
+    long start = lineStarts[line];
+    long end   = (line + 1 < starts)?lineStarts[line + 1] - 1:fileLength;
+    int  len   = (int)(end - start);
+    if (len > lineBuf.length) lineBuf = new byte[Math.max(len, lineBuf.length * 2)];
+
+    for (int done = 0; done < len; )
+    {
+      ByteBuffer b = segments[(int)((start + done) >> SEGMENT_SHIFT)].duplicate();
+      int pos   = (int)((start + done) & SEGMENT_MASK);
+      int count = Math.min(len - done, b.limit() - pos);
+      b.position(pos);
+      b.get(lineBuf, done, count);
+      done += count;
+    }
+
+    try {
+      return new String(lineBuf, 0, len, encoding);
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new RuntimeException(e.getMessage());
+    }
+  }
+
+ /**
+  * Indexes next block of lines and publishes them. Returns <code>true</code> if there are
+  * lines that have not been indexed yet.
+  */
+  private boolean index(int maxLines)
+  {
+    int  first = scanLines, chars = scanChars;
+    long pos   = scanPos;
+
+    if (scanLines == 0) addLine(0, 0);
+    while (pos < fileLength && scanLines - first < maxLines)
+    {
+      MappedByteBuffer b   = segments[(int)(pos >> SEGMENT_SHIFT)];
+      int              off = (int)(pos & SEGMENT_MASK);
+      int              lim = b.limit();
+      for (; off < lim && scanLines - first < maxLines; off++)
+      {
+        byte c = b.get(off);
+        if (c == '\n')
+        {
+          chars++;
+          addLine(((long)(pos >> SEGMENT_SHIFT) << SEGMENT_SHIFT) + off + 1, chars);
+        }
+        else
+        if (!isUTF8) chars++;
+        else
+        if ((c & 0xC0) != 0x80) chars += ((c & 0xF8) == 0xF0)?2:1;
+      }
+      pos = ((pos >> SEGMENT_SHIFT) << SEGMENT_SHIFT) + off;
+    }
+
+    scanPos   = pos;
+    scanChars = chars;
+    boolean hasMore = pos < fileLength;
+    if (hasMore) publish(scanLines - 1, (isUTF8?scanCharStarts[scanLines - 1]:(int)scanStarts[scanLines - 1]) - 1);
+    else         publish(scanLines, chars);
+    return hasMore;
+  }
+
+  private void addLine(long start, int chars)
+  {
+    if (scanLines == scanStarts.length)
+    {
+      int    n  = scanStarts.length * 2;
+      long[] ls = new long[n];
+      System.arraycopy(scanStarts, 0, ls, 0, scanLines);
+      scanStarts = ls;
+      if (isUTF8)
+      {
+        int[] cs = new int[n];
+        System.arraycopy(scanCharStarts, 0, cs, 0, scanLines);
+        scanCharStarts = cs;
+      }
+    }
+    scanStarts[scanLines] = start;
+    if (isUTF8) scanCharStarts[scanLines] = chars;
+    scanLines++;
+  }
+
+ /**
+  * Publishes the indexed lines. The indexing thread keeps adding lines to its arrays and
+  * replaces the arrays when they are full, so the current arrays are captured here and
+  * installed as the readable lines index on the AWT event dispatch thread. The published
+  * items of an array are never modified.
+  */
+  private void publish(final int lines, final int length)
+  {
+    final int    scanned = scanLines;
+    final long[] ls      = scanStarts;
+    final int[]  cs      = scanCharStarts;
+    if (Thread.currentThread() == indexer)
+    {
+      java.awt.EventQueue.invokeLater(new Runnable() {
+        public void run() {
+          publish(lines, length, scanned, ls, cs);
+        }
+      });
+    }
+    else publish(lines, length, scanned, ls, cs);
+  }
+
+  private void publish(int lines, int length, int scanned, long[] ls, int[] cs)
+  {
+    if (lines > size || length != textLength)
+    {
+      synchronized (this)
+      {
+        if (extra.length < lines)
+        {
+          int[] buf = new int[Math.max(lines, extra.length * 2)];
+          System.arraycopy(extra, 0, buf, 0, extra.length);
+          extra = buf;
+        }
+      }
+
+      int prevSize = size, prevLength = textLength;
+      lineStarts = ls;
+      charStarts = cs;
+      starts     = scanned;
+      textLength = length;
+      size       = lines;
+      if (support != null)
+      {
+        int from = Math.max(prevSize - 1, 0);
+        TextEvent e = new TextEvent(this, TextEvent.INSERTED, prevLength, length - prevLength);
+        e.setUpdatedLines(from, lines - from);
+        support.perform(e);
+      }
+    }
+  }
+}
@@ -54,13 +54,24 @@ import org.zaval.util.*;
 /**
  * This class is implementation of <code>MatrixModel</code> interface and it used to organize
  * matrix-like structures.
+ * <p>
+ * The matrix rows are kept in blocks of a fixed size, a row is an array of the row cells
+ * that is allocated only when a not-null value is put into the row and grows geometrically.
+ * Inserting or removing rows shifts rows only within the affected blocks, appending rows
+ * costs amortized constant time and changing the number of columns doesn't re-allocate the
+ * matrix.
  */
 public class Matrix
 implements MatrixModel
 {
-   private Object[][] objs;
-   private int        rows, cols, alloc_rows, alloc_cols;
-   private Vector support;
+   private static final int BLOCK_SIZE = 256;
+   private static final Object NULL_KEY = new Object();
+
+   private Object[][][] blocks = new Object[4][][];
+   private int[]        sizes  = new int[4], starts = new int[4];
+   private int          count, last;
+   private int          rows, cols;
+   private Vector       support;
 
   /**
    * Constructs the matrix component with the specified number of rows an columns.
@@ -112,42 +123,26 @@ implements MatrixModel
    {
      if (rows != this.rows || cols != this.cols)
      {
-       if (alloc_cols < cols||
-           alloc_rows < rows  )
-       {
-          Object[][] nobjs = new Object[rows][cols]; /*java*/
-
-          /*C#object[][] nobjs = new object[rows][];*/
-          /*C#for (int i=0;i<rows;i++) nobjs[i] = new object[cols];*/
+       int pc = this.cols;
+       int pr = this.rows;
 
-          alloc_cols = cols;
-          alloc_rows = rows;
-          if (objs != null) copy (objs, nobjs);
-          objs = nobjs;
-       }
+       if (rows < pr) cut(rows, pr - rows);
        else
-       {
-         if (cols < this.cols)
-         {
-           for (int i=cols; i<this.cols; i++)
-             for (int j=0; j<this.rows; j++)
-               objs[j][i] = null;
-         }
+       if (rows > pr) grow(pr, rows - pr);
 
-         if (rows < this.rows)
-         {
-           for (int i=0; i<cols; i++)
-             for (int j=rows; j<this.rows; j++)
-               objs[j][i] = null;
-         }
+       if (cols < pc)
+       {
+         for (int b=0; b<count; b++)
+           for (int i=0; i<sizes[b]; i++)
+           {
+             Object[] r = blocks[b][i];
+             if (r != null && r.length > cols) Arrays.fill(r, cols, Math.min(r.length, pc), null);
+           }
        }
 
-       int pc = this.cols;
-       int pr = this.rows;
        this.cols = cols;
        this.rows = rows;
-
-       if (pc != cols || pr != rows) perform (new MatrixEvent(this, pr, pc));
+       perform (new MatrixEvent(this, pr, pc));
      }
    }
 
@@ -171,21 +166,258 @@ implements MatrixModel
    */
    public void put(int row, int col, Object obj)
    {
-      int nr = getRows();
-      int nc = getCols();
-      if (row >= nr) nr += (row - nr + 1);
-      if (col >= nc) nc += (col - nc + 1);
-      setSize(nr, nc);
-
-      Object old = objs[row][col];
-      if ((obj == null && obj != objs[row][col]      )||
-          (obj != null && !obj.equals(objs[row][col]))  )
+      if (row >= rows || col >= cols) setSize(Math.max(rows, row + 1), Math.max(cols, col + 1));
+
+      Object old = cell(row, col);
+      if (isChanged(old, obj))
       {
-        objs[row][col] = obj;
+        store(row, col, obj);
         perform(new MatrixEvent(this, row, col, old));
       }
    }
 
+  /**
+   * Updates the cells range starting from the specified cell with the given values. The
+   * <code>values[i][j]</code> value is put into the <code>(row + i, col + j)</code> cell.
+   * If the range is out of bounds the matrix dimension than the matrix size will be
+   * extended. The method performs one RANGE_MODIFIED event for all modified cells instead
+   * of an event per cell.
+   * @param <code>row</code> the first row of the range.
+   * @param <code>col</code> the first column of the range.
+   * @param <code>values</code> the specified values.
+   */
+   public void putRange(int row, int col, Object[][] values) {
+     update(row, col, values, null, false);
+   }
+
+  /**
+   * Updates the row cells starting from the specified cell with the given values. The
+   * method performs one RANGE_MODIFIED event for all modified cells.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the first column.
+   * @param <code>values</code> the specified values.
+   */
+   public void putRow(int row, int col, Object[] values) {
+     update(row, col, null, values, false);
+   }
+
+  /**
+   * Updates the column cells starting from the specified cell with the given values. The
+   * method performs one RANGE_MODIFIED event for all modified cells.
+   * @param <code>row</code> the first row.
+   * @param <code>col</code> the specified column.
+   * @param <code>values</code> the specified values.
+   */
+   public void putColumn(int row, int col, Object[] values) {
+     update(row, col, null, values, true);
+   }
+
+  /**
+   * Replaces the matrix content with the specified values. The matrix dimension is set to
+   * the number of the values rows and the maximal values row length, the missed cells are
+   * set to <code>null</code>. The method performs MATRIX_RESIZED event if the dimension
+   * has been changed and one RANGE_MODIFIED event for the whole matrix.
+   * @param <code>values</code> the specified values.
+   */
+   public void replaceAll(Object[][] values)
+   {
+     int pr = rows, pc = cols, nc = 0;
+     for (int i=0; i<values.length; i++)
+       if (values[i] != null) nc = Math.max(nc, values[i].length);
+
+     blocks = new Object[4][][];
+     sizes  = new int[4];
+     starts = new int[4];
+     count  = last = rows = 0;
+     grow(0, values.length);
+     rows = values.length;
+     cols = nc;
+
+     for (int b=0; b<count; b++)
+       for (int i=0; i<sizes[b]; i++)
+       {
+         Object[] r = values[starts[b] + i];
+         if (r != null && r.length > 0)
+         {
+           blocks[b][i] = new Object[r.length];
+           System.arraycopy(r, 0, blocks[b][i], 0, r.length);
+         }
+       }
+
+     if (pr != rows || pc != cols) perform(new MatrixEvent(this, pr, pc));
+     if (rows > 0 && cols > 0) perform(new MatrixEvent(this, 0, 0, rows, cols));
+   }
+
+  /**
+   * Reconciles the matrix content with the specified values. The result is the same as the
+   * <code>replaceAll</code> method result, but the method changes only the differing parts
+   * of the matrix. The matrix rows are matched with the values rows by the specified key
+   * column using a hash join (rows with equal keys are matched in their order):
+   * <ul>
+   *   <li>
+   *     The rows that don't have a match are removed, the values rows that don't have a
+   *     match are inserted. Every run of the removed or inserted rows performs
+   *     MATRIX_RESIZED event that says where the rows have been removed or inserted.
+   *   </li>
+   *   <li>
+   *     The longest sequence of the matched rows that keeps its order stays in place, the
+   *     other matched rows are moved by removing and inserting.
+   *   </li>
+   *   <li>
+   *     Only the changed cells of the rows that stay in place are updated. The adjacent
+   *     updated rows are reported with one RANGE_MODIFIED event.
+   *   </li>
+   * </ul>
+   * The positioned events allow a grid to keep its selection and metrics for the rows that
+   * stay in place.
+   * @param <code>values</code> the specified values.
+   * @param <code>keyCol</code> the specified key column.
+   */
+   public void reconcile(Object[][] values, int keyCol)
+   {
+     int n = values.length, nc = 0;
+     for (int i=0; i<n; i++)
+       if (values[i] != null) nc = Math.max(nc, values[i].length);
+
+     if (nc > cols)
+     {
+       int pc = cols;
+       cols = nc;
+       perform(new MatrixEvent(this, rows, pc));
+     }
+
+     // hash join, the old rows with equal keys are chained in their order
+     Hashtable heads = new Hashtable();
+     int[]     next  = new int[rows];
+     for (int i=rows - 1; i>=0; i--)
+     {
+       Integer h = (Integer)heads.put(key(cell(i, keyCol)), new Integer(i));
+       next[i] = (h == null)?-1:h.intValue();
+     }
+
+     int[] match = new int[n];
+     int   m     = 0;
+     for (int j=0; j<n; j++)
+     {
+       Object  key = key(values[j] != null && keyCol < values[j].length?values[j][keyCol]:null);
+       Integer h   = (Integer)heads.get(key);
+       match[j] = -1;
+       if (h != null)
+       {
+         int i = h.intValue();
+         match[j] = i;
+         m++;
+         if (next[i] < 0) heads.remove(key);
+         else             heads.put(key, new Integer(next[i]));
+       }
+     }
+
+     // the longest increasing sequence of the matched old rows stays in place
+     boolean[] isKept = new boolean[rows];
+     int[]     tails  = new int[m], prev = new int[n];
+     int       len    = 0;
+     for (int j=0; j<n; j++)
+     {
+       if (match[j] < 0) continue;
+       int lo = 0, hi = len;
+       while (lo < hi)
+       {
+         int mid = (lo + hi) >>> 1;
+         if (match[tails[mid]] < match[j]) lo = mid + 1;
+         else                              hi = mid;
+       }
+       prev[j]   = (lo > 0)?tails[lo - 1]:-1;
+       tails[lo] = j;
+       if (lo == len) len++;
+     }
+     for (int j=(len > 0)?tails[len - 1]:-1; j>=0; j=prev[j]) isKept[match[j]] = true;
+
+     for (int i=rows - 1; i>=0; )
+     {
+       if (isKept[i]) i--;
+       else
+       {
+         int end = i;
+         while (i >= 0 && !isKept[i]) i--;
+         cut(i + 1, end - i);
+         rows -= end - i;
+         perform(new MatrixEvent(this, rows + end - i, cols, i + 1));
+       }
+     }
+
+     boolean[] isNew = new boolean[n];
+     for (int j=0; j<n; )
+     {
+       if (match[j] >= 0 && isKept[match[j]]) j++;
+       else
+       {
+         int start = j;
+         while (j < n && (match[j] < 0 || !isKept[match[j]])) isNew[j++] = true;
+         grow(start, j - start);
+         rows += j - start;
+         for (int i=start; i<j; i++)
+         {
+           Object[] r = values[i];
+           if (r != null && r.length > 0)
+           {
+             int b = block(i);
+             blocks[b][i - starts[b]] = new Object[r.length];
+             System.arraycopy(r, 0, blocks[b][i - starts[b]], 0, r.length);
+           }
+         }
+         perform(new MatrixEvent(this, rows - j + start, cols, start));
+       }
+     }
+
+     int r1 = -1, r2 = -1, c1 = 0, c2 = 0;
+     for (int j=0; j<n; j++)
+     {
+       Object[] r  = values[j];
+       int      rl = (r == null)?0:r.length, f = -1, l = -1;
+       if (isNew[j])
+       {
+         if (rl > 0)
+         {
+           f = 0;
+           l = rl - 1;
+         }
+       }
+       else
+       {
+         for (int c=0; c<nc; c++)
+         {
+           Object obj = (c < rl)?r[c]:null;
+           if (isChanged(cell(j, c), obj))
+           {
+             store(j, c, obj);
+             if (f < 0) f = c;
+             l = c;
+           }
+         }
+       }
+
+       if (f >= 0)
+       {
+         if (r2 == j - 1 && r1 >= 0)
+         {
+           c1 = Math.min(c1, f);
+           c2 = Math.max(c2, l);
+         }
+         else
+         {
+           if (r1 >= 0) perform(new MatrixEvent(this, r1, c1, r2 - r1 + 1, c2 - c1 + 1));
+           r1 = j;
+           c1 = f;
+           c2 = l;
+         }
+         r2 = j;
+       }
+     }
+     if (r1 >= 0) perform(new MatrixEvent(this, r1, c1, r2 - r1 + 1, c2 - c1 + 1));
+
+     if (nc < cols) setSize(rows, nc);
+   }
+
   /**
    * Updates a cell with the specified value at the specified index. Any cell of the
    * matrix object can be identified by row and column or by index. The index for the
@@ -208,8 +440,11 @@ implements MatrixModel
    * @param <code>col</code> the specified column.
    * @return a value.
    */
-   public Object get(int row, int col) {
-     return objs[row][col];
+   public Object get(int row, int col)
+   {
+     if (row < 0 || row >= rows) throw new ArrayIndexOutOfBoundsException(row);
+     if (col < 0 || col >= cols) throw new ArrayIndexOutOfBoundsException(col);
+     return cell(row, col);
    }
 
   /**
@@ -219,7 +454,50 @@ implements MatrixModel
    */
    public Object get(int index) {
      Point p = MathBox.index2point(index, getCols());
-     return objs[p.x][p.y];
+     return get(p.x, p.y);
+   }
+
+  /**
+   * Inserts the specified number of empty rows starting from the given row.
+   * @param <code>begrow</code> the first inserted row.
+   * @param <code>count</code> the number of rows to be inserted.
+   */
+   public void insertRows(int begrow, int count)
+   {
+     if (begrow < 0 || begrow > rows) throw new ArrayIndexOutOfBoundsException(begrow);
+     if (count > 0)
+     {
+       grow(begrow, count);
+       rows += count;
+       perform(new MatrixEvent(this, rows - count, cols, begrow));
+     }
+   }
+
+  /**
+   * Inserts the specified number of empty columns starting from the given column.
+   * @param <code>begcol</code> the first inserted column.
+   * @param <code>count</code> the number of columns to be inserted.
+   */
+   public void insertCols(int begcol, int count)
+   {
+     if (begcol < 0 || begcol > cols) throw new ArrayIndexOutOfBoundsException(begcol);
+     if (count > 0)
+     {
+       for (int b=0; b<this.count; b++)
+         for (int i=0; i<sizes[b]; i++)
+         {
+           Object[] r = blocks[b][i];
+           if (r != null && r.length > begcol)
+           {
+             Object[] nr = new Object[r.length + count];
+             System.arraycopy(r, 0, nr, 0, begcol);
+             System.arraycopy(r, begcol, nr, begcol + count, r.length - begcol);
+             blocks[b][i] = nr;
+           }
+         }
+       cols += count;
+       perform(new MatrixEvent(this, rows, cols - count));
+     }
    }
 
   /**
@@ -229,17 +507,11 @@ implements MatrixModel
    */
    public void removeRows(int begrow, int count)
    {
-     int from = begrow;
-     for (int i=(begrow + count - 1); i<rows; i++, begrow++)
-     {
-       for (int j=0; j<cols; j++)
-       {
-         objs[begrow][j] = objs[i][j];
-         objs[i][j] = null;
-       }
-     }
+     if (begrow < 0 || begrow > rows) throw new ArrayIndexOutOfBoundsException(begrow);
+     if (count < 0 || begrow + count > rows) throw new ArrayIndexOutOfBoundsException(begrow + count);
+     cut(begrow, count);
      rows -= count;
-     perform(new MatrixEvent(this, rows + count, cols));
+     perform(new MatrixEvent(this, rows + count, cols, begrow));
    }
 
   /**
@@ -249,15 +521,17 @@ implements MatrixModel
    */
    public void removeCols(int begcol, int count)
    {
-     int from = begcol;
-     for (int i=(begcol+count); i<cols; i++, begcol++)
-     {
-       for (int j=0; j<rows; j++)
+     for (int b=0; b<this.count; b++)
+       for (int i=0; i<sizes[b]; i++)
        {
-         objs[j][begcol] = objs[j][i];
-         objs[j][i]      = null;
+         Object[] r = blocks[b][i];
+         if (r != null && r.length > begcol)
+         {
+           int n = Math.min(count, r.length - begcol);
+           System.arraycopy(r, begcol + n, r, begcol, r.length - begcol - n);
+           Arrays.fill(r, r.length - n, r.length, null);
+         }
        }
-     }
      cols -= count;
      perform(new MatrixEvent(this, rows, cols + count));
    }
@@ -297,25 +571,230 @@ implements MatrixModel
      }
    }
 
-   private static void copy (Object[][] s, Object[][] d)
+   private void update(int row, int col, Object[][] values, Object[] vector, boolean isColumn)
    {
-      Dimension sd = arraySize(s);
-      Dimension dd = arraySize(d);
+     int nr = 1, nc = 0;
+     if (values != null)
+     {
+       nr = values.length;
+       for (int i=0; i<nr; i++)
+         if (values[i] != null) nc = Math.max(nc, values[i].length);
+     }
+     else
+     if (isColumn)
+     {
+       nr = vector.length;
+       nc = 1;
+     }
+     else nc = vector.length;
+
+     if (nr == 0 || nc == 0) return;
+     if (row + nr > rows || col + nc > cols) setSize(Math.max(rows, row + nr), Math.max(cols, col + nc));
+
+     int r1 = Integer.MAX_VALUE, c1 = Integer.MAX_VALUE, r2 = -1, c2 = -1;
+     for (int i=0; i<nr; i++)
+     {
+       Object[] r = (values != null)?values[i]:vector;
+       int      n = (r == null)?0:((values == null && isColumn)?1:r.length);
+       for (int j=0; j<n; j++)
+       {
+         Object obj = (values == null && isColumn)?r[i]:r[j];
+         if (isChanged(cell(row + i, col + j), obj))
+         {
+           store(row + i, col + j, obj);
+           r1 = Math.min(r1, row + i);
+           r2 = Math.max(r2, row + i);
+           c1 = Math.min(c1, col + j);
+           c2 = Math.max(c2, col + j);
+         }
+       }
+     }
+     if (r2 >= 0) perform(new MatrixEvent(this, r1, c1, r2 - r1 + 1, c2 - c1 + 1));
+   }
 
-      int rows = Math.min(sd.height, dd.height);
-      int cols = Math.min(sd.width,  dd.width );
+   private Object cell(int row, int col)
+   {
+     int      b = block(row);
+     Object[] r = blocks[b][row - starts[b]];
+     return (r != null && col < r.length)?r[col]:null;
+   }
+
+   private void store(int row, int col, Object obj)
+   {
+     int      b = block(row);
+     Object[] r = blocks[b][row - starts[b]];
+     if (r == null || col >= r.length)
+     {
+       if (obj == null) return;
+       int len = (r == null)?0:r.length;
+       Object[] nr = new Object[Math.max(col + 1, Math.min(cols, Math.max(4, len*2)))];
+       if (r != null) System.arraycopy(r, 0, nr, 0, len);
+       r = blocks[b][row - starts[b]] = nr;
+     }
+     r[col] = obj;
+   }
+
+   private static Object key(Object obj) {
+     return (obj == null)?NULL_KEY:obj;
+   }
 
-      for (int i=0; i<rows; i++)
-        for (int j=0; j<cols; j++)
-          d[i][j] = s[i][j];
+   private static boolean isChanged(Object old, Object obj) {
+     return obj == null?old != null:!obj.equals(old);
+   }
+
+  /**
+   * Finds the block that contains the specified row. The last found block is checked
+   * first, so sequential access doesn't need the binary search. The last block is read
+   * once, so the matrix can be read from several threads.
+   */
+   private int block(int row)
+   {
+     int l = last;
+     if (l < count && row >= starts[l] && row < starts[l] + sizes[l]) return l;
+     int lo = 0, hi = count - 1;
+     while (lo < hi)
+     {
+       int mid = (lo + hi + 1) >>> 1;
+       if (starts[mid] <= row) lo = mid;
+       else                    hi = mid - 1;
+     }
+     return last = lo;
+   }
+
+  /**
+   * Inserts the specified number of empty rows. The rows are inserted into the block that
+   * contains the given row. If the block overflows its rows and the new rows are spread
+   * evenly over the block and new blocks that are inserted after it, so the blocks that
+   * are split by single row insertions stay half full and the next insertions fit into
+   * them.
+   */
+   private void grow(int at, int n)
+   {
+     if (count == 0) insertBlocks(0, 1);
+
+     int        b    = (at == rows)?count - 1:block(at);
+     int        off  = at - starts[b];
+     int        size = sizes[b];
+     Object[][] bl   = blocks[b];
+     if (size + n <= BLOCK_SIZE)
+     {
+       System.arraycopy(bl, off, bl, off + n, size - off);
+       Arrays.fill(bl, off, off + n, null);
+       sizes[b] += n;
+     }
+     else
+     {
+       Object[][] old = new Object[size][];
+       System.arraycopy(bl, 0, old, 0, size);
+       Arrays.fill(bl, 0, size, null);
+
+       int total = size + n, k = (total + BLOCK_SIZE - 1)/BLOCK_SIZE;
+       insertBlocks(b + 1, k - 1);
+       for (int i=0, j=0; j<k; j++)
+       {
+         int q = total/k + ((j < total%k)?1:0);
+         for (int l=0; l<q; l++, i++)
+         {
+           if      (i < off)     blocks[b + j][l] = old[i];
+           else if (i >= off + n) blocks[b + j][l] = old[i - n];
+         }
+         sizes[b + j] = q;
+       }
+     }
+     updateStarts(b);
+   }
+
+  /**
+   * Removes the specified number of rows. Empty blocks are removed, the block where the
+   * removed range starts is merged with the neighbour blocks if it is possible.
+   */
+   private void cut(int at, int n)
+   {
+     if (n <= 0) return;
+     int b = block(at), first = b, off = at - starts[b];
+     while (n > 0)
+     {
+       Object[][] bl = blocks[b];
+       int k = Math.min(n, sizes[b] - off);
+       System.arraycopy(bl, off + k, bl, off, sizes[b] - off - k);
+       Arrays.fill(bl, sizes[b] - k, sizes[b], null);
+       sizes[b] -= k;
+       n -= k;
+       off = 0;
+       b++;
+     }
+
+     int empty = first;
+     for (int i=first; i<b; i++)
+       if (sizes[i] > 0) move(i, empty++);
+     removeBlocks(empty, b - empty);
+
+     if (first > 0) first--;
+     for (int i=0; i<2 && first + 1 < count; i++)
+     {
+       if (sizes[first] + sizes[first + 1] <= BLOCK_SIZE)
+       {
+         System.arraycopy(blocks[first + 1], 0, blocks[first], sizes[first], sizes[first + 1]);
+         sizes[first] += sizes[first + 1];
+         removeBlocks(first + 1, 1);
+       }
+       else first++;
+     }
+     updateStarts(Math.max(0, first - 2));
+   }
+
+   private void move(int from, int to)
+   {
+     if (from != to)
+     {
+       Object[][] t = blocks[to];
+       blocks[to]   = blocks[from];
+       blocks[from] = t;
+       sizes [to]   = sizes[from];
+       sizes [from] = 0;
+     }
+   }
+
+   private void insertBlocks(int at, int n)
+   {
+     if (n <= 0) return;
+     if (count + n > blocks.length)
+     {
+       int          capacity = Math.max(count + n, blocks.length * 2);
+       Object[][][] nb = new Object[capacity][][];
+       int[]        ns = new int[capacity], nst = new int[capacity];
+       System.arraycopy(blocks, 0, nb, 0, count);
+       System.arraycopy(sizes,  0, ns, 0, count);
+       System.arraycopy(starts, 0, nst, 0, count);
+       blocks = nb;
+       sizes  = ns;
+       starts = nst;
+     }
+
+     System.arraycopy(blocks, at, blocks, at + n, count - at);
+     System.arraycopy(sizes,  at, sizes,  at + n, count - at);
+     System.arraycopy(starts, at, starts, at + n, count - at);
+     for (int i=at; i<at + n; i++)
+     {
+       blocks[i] = new Object[BLOCK_SIZE][];
+       sizes [i] = 0;
+     }
+     count += n;
+   }
+
+   private void removeBlocks(int at, int n)
+   {
+     if (n <= 0) return;
+     System.arraycopy(blocks, at + n, blocks, at, count - at - n);
+     System.arraycopy(sizes,  at + n, sizes,  at, count - at - n);
+     System.arraycopy(starts, at + n, starts, at, count - at - n);
+     count -= n;
+     for (int i=count; i<count + n; i++) blocks[i] = null;
    }
 
-   private static Dimension arraySize(Object[][] s)
+   private void updateStarts(int from)
    {
-     if (s == null) return new Dimension();
-     Dimension d = new Dimension();
-     d.height= s.length;
-     d.width = (s.length==0)?0:((Object[])s[0]).length;
-     return d;
+     if (from == 0 && count > 0) starts[0] = 0;
+     for (int i=Math.max(from, 1); i<count; i++) starts[i] = starts[i - 1] + sizes[i - 1];
    }
 }
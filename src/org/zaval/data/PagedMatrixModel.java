@@ -0,0 +1,492 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a read-only implementation of <code>MatrixModel</code> interface that is
+ * intended to show very large data sets (for instance database query results) without
+ * holding all rows in memory. The model knows the number of rows and columns and fetches
+ * the rows by pages using the specified <code>MatrixPageSource</code>. The fetched pages
+ * are kept in a cache, the least recently used page is removed from the cache when a new
+ * page is loaded and the cache is full.
+ * <p>
+ * The pages are loaded with a background thread, the most recently requested page is
+ * loaded first. If the requested cell belongs to a page that is not loaded yet the
+ * <code>get</code> method returns the placeholder value (<code>null</code> by default)
+ * and requests the page. As soon as the page has been loaded the model puts it into the
+ * cache and performs RANGE_MODIFIED matrix event for the page rows. The cache is updated
+ * and the event is performed from the AWT event dispatch thread.
+ * <p>
+ * The <code>setVisibleRows</code> method is used to say what rows are visible, the model
+ * prefetches the pages that are adjacent to the visible rows and cancels the loading of
+ * the pages that are far from it. The model implements <code>VisibleRowsListener</code>
+ * interface, so <code>LwGrid</code> calls the method automatically basing on its cells
+ * visibility. Note that the grid has to use the custom metric (see
+ * <code>LwGrid.usePsMetric</code> method), since the preferred size metric requires all
+ * cells values. The cache has to be able to keep the visible pages and the adjacent
+ * pages, otherwise the pages will be re-loaded permanently. The <code>put</code>
+ * method throws <code>UnsupportedOperationException</code>.
+ * <p>
+ * If the page source throws an exception or an error the page is not loaded and the
+ * registered <code>MatrixPageErrorListener</code> listeners are notified from the AWT
+ * event dispatch thread. The loading thread is restarted with the next page request if
+ * the error has stopped it.
+ */
+public class PagedMatrixModel
+implements MatrixModel, VisibleRowsListener
+{
+  private MatrixPageSource source;
+  private volatile int     rows, generation;
+  private int              cols, pageSize;
+  private Object           placeholder;
+
+  private int[]        cachePages;
+  private Object[][][] cacheValues;
+  private long[]       cacheStamps;
+  private long         stamp;
+  private int          lastSlot;
+
+  private Vector    queue   = new Vector();
+  private Hashtable pending = new Hashtable();
+  private Thread    loader;
+  private int       firstVisible = -1, lastVisible = -1;
+  private Vector    support, errorSupport;
+
+ /**
+  * Constructs a new model with the specified page source, number of rows, number of
+  * columns and page size. The pages cache size is set to 32 pages.
+  * @param <code>source</code> the specified page source.
+  * @param <code>rows</code> the specified number of rows.
+  * @param <code>cols</code> the specified number of columns.
+  * @param <code>pageSize</code> the specified number of rows in a page.
+  */
+  public PagedMatrixModel(MatrixPageSource source, int rows, int cols, int pageSize)
+  {
+    if (pageSize <= 0) throw new IllegalArgumentException();
+    this.source   = source;
+    this.rows     = rows;
+    this.cols     = cols;
+    this.pageSize = pageSize;
+    setCacheSize(32);
+  }
+
+ /**
+  * Gets the number of rows.
+  * @return a number of rows.
+  */
+  public int getRows () {
+    return rows;
+  }
+
+ /**
+  * Gets the number of columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return cols;
+  }
+
+ /**
+  * Gets the number of rows in a page.
+  * @return a page size.
+  */
+  public int getPageSize () {
+    return pageSize;
+  }
+
+ /**
+  * Sets the maximal number of pages that can be kept in the cache. The method clears the
+  * cache.
+  * @param <code>pages</code> the maximal number of cached pages.
+  */
+  public void setCacheSize (int pages)
+  {
+    if (pages <= 0) throw new IllegalArgumentException();
+    cachePages  = new int[pages];
+    cacheValues = new Object[pages][][];
+    cacheStamps = new long[pages];
+    for (int i=0; i<pages; i++) cachePages[i] = -1;
+    lastSlot = 0;
+  }
+
+ /**
+  * Gets the maximal number of pages that can be kept in the cache.
+  * @return a maximal number of cached pages.
+  */
+  public int getCacheSize () {
+    return cachePages.length;
+  }
+
+ /**
+  * Sets the placeholder value. The value is returned by <code>get</code> method for the
+  * cells whose page is not loaded yet.
+  * @param <code>v</code> the placeholder value.
+  */
+  public void setPlaceholder (Object v) {
+    placeholder = v;
+  }
+
+ /**
+  * Gets the placeholder value.
+  * @return a placeholder value.
+  */
+  public Object getPlaceholder () {
+    return placeholder;
+  }
+
+ /**
+  * Checks if the specified row has been loaded.
+  * @param <code>row</code> the specified row.
+  * @return <code>true</code> if the row has been loaded; <code>false</code> otherwise.
+  */
+  public boolean isLoaded (int row) {
+    return find(row / pageSize) >= 0;
+  }
+
+ /**
+  * Sets the number of rows. The method clears the cache, cancels the pages loading and
+  * performs MATRIX_RESIZED event.
+  * @param <code>rows</code> the specified number of rows.
+  */
+  public void setRows (int rows)
+  {
+    if (this.rows != rows)
+    {
+      int pr = this.rows;
+      clear();
+      this.rows = rows;
+      perform(new MatrixEvent(this, pr, cols));
+    }
+  }
+
+ /**
+  * Clears the cache and cancels the pages loading, so all rows will be fetched again.
+  * The method performs RANGE_MODIFIED event for all the matrix cells.
+  */
+  public void refresh ()
+  {
+    clear();
+    if (rows > 0 && cols > 0) perform(new MatrixEvent(this, 0, 0, rows, cols));
+  }
+
+ /**
+  * Sets the visible rows. The model requests the pages of the visible rows and the
+  * adjacent pages (the pages that contain the same number of rows before and after the
+  * visible rows, but at least one page) if the pages are not loaded. The loading of other
+  * pages that have not been started yet is canceled.
+  * @param <code>first</code> the first visible row.
+  * @param <code>last</code> the last visible row.
+  */
+  public void setVisibleRows (int first, int last)
+  {
+    if (first == firstVisible && last == lastVisible) return;
+    firstVisible = first;
+    lastVisible  = last;
+    if (rows == 0) return;
+
+    int n     = Math.max(last - first + 1, pageSize);
+    int from  = Math.max(0, first - n)/pageSize;
+    int to    = Math.min(rows - 1, last + n)/pageSize;
+    synchronized (queue)
+    {
+      for (int i=queue.size() - 1; i>=0; i--)
+      {
+        Integer p = (Integer)queue.elementAt(i);
+        if (p.intValue() < from || p.intValue() > to)
+        {
+          queue.removeElementAt(i);
+          pending.remove(p);
+        }
+      }
+    }
+
+    for (int i=from; i<first/pageSize; i++) request(i);
+    for (int i=to; i>last/pageSize; i--) request(i);
+    for (int i=last/pageSize; i>=first/pageSize; i--) request(i);
+  }
+
+ /**
+  * Invoked when the visible rows may have been changed. The implementation calls the
+  * <code>setVisibleRows</code> method.
+  * @param <code>first</code> the first visible row.
+  * @param <code>last</code> the last visible row.
+  */
+  public void visibleRowsChanged(int first, int last) {
+    setVisibleRows(first, last);
+  }
+
+ /**
+  * Gets the value of the specified cell. If the cell page is not loaded the method
+  * requests the page and returns the placeholder value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col)
+  {
+    if (row < 0 || row >= rows) throw new ArrayIndexOutOfBoundsException(row);
+    if (col < 0 || col >= cols) throw new ArrayIndexOutOfBoundsException(col);
+
+    int page = row / pageSize, slot = find(page);
+    if (slot < 0)
+    {
+      request(page);
+      return placeholder;
+    }
+
+    cacheStamps[slot] = ++stamp;
+    Object[][] v = cacheValues[slot];
+    Object[]   r = (row - page * pageSize < v.length)?v[row - page * pageSize]:null;
+    return (r != null && col < r.length)?r[col]:null;
+  }
+
+ /**
+  * Updates the specified cell with the specified value. The model is read-only, so the
+  * method throws <code>UnsupportedOperationException</code>.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>o</code> the specified value.
+  */
+  public void put(int row, int col, Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+ /**
+  * Stops the loading thread.
+  */
+  public void close()
+  {
+    synchronized (queue)
+    {
+      if (loader != null) loader.interrupt();
+      loader = null;
+    }
+  }
+
+ /**
+  * Adds the matrix listener to be notified whenever a page has been loaded or the matrix
+  * dimension has been changed.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener m) {
+    if (support == null) support = new Vector(1);
+    if (!support.contains(m)) support.addElement(m);
+  }
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void removeMatrixListener (MatrixListener m) {
+    if (support != null) support.removeElement(m);
+  }
+
+ /**
+  * Adds the page error listener to be notified whenever the page source has failed to
+  * fetch a page.
+  * @param <code>l</code> the page error listener.
+  */
+  public void addPageErrorListener (MatrixPageErrorListener l) {
+    if (errorSupport == null) errorSupport = new Vector(1);
+    if (!errorSupport.contains(l)) errorSupport.addElement(l);
+  }
+
+ /**
+  * Removes the page error listener.
+  * @param <code>l</code> the page error listener.
+  */
+  public void removePageErrorListener (MatrixPageErrorListener l) {
+    if (errorSupport != null) errorSupport.removeElement(l);
+  }
+
+ /**
+  * Fires the specified event to registered matrix listeners.
+  * @param <code>e</code> the specified event.
+  */
+  protected void perform(MatrixEvent e)
+  {
+    if (support != null)
+    {
+      for (int i=0; i<support.size(); i++)
+      {
+        MatrixListener l = (MatrixListener)support.elementAt(i);
+        if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+        else l.cellModified(e);
+      }
+    }
+  }
+
+  private int find(int page)
+  {
+    if (cachePages[lastSlot] == page) return lastSlot;
+    for (int i=0; i<cachePages.length; i++)
+      if (cachePages[i] == page) return lastSlot = i;
+    return -1;
+  }
+
+  private void clear()
+  {
+    synchronized (queue)
+    {
+      generation++;
+      queue.removeAllElements();
+      pending.clear();
+    }
+    for (int i=0; i<cachePages.length; i++)
+    {
+      cachePages [i] = -1;
+      cacheValues[i] = null;
+    }
+    firstVisible = lastVisible = -1;
+  }
+
+  private void request(int page)
+  {
+    if (find(page) >= 0) return;
+    synchronized (queue)
+    {
+      Integer key = new Integer(page);
+      if (pending.get(key) == null)
+      {
+        pending.put(key, key);
+        queue.addElement(key);
+        queue.notify();
+      }
+      else
+      if (queue.removeElement(key)) queue.addElement(key);
+
+      if (loader == null)
+      {
+        loader = new Thread() {
+          public void run() {
+            load();
+          }
+        };
+        loader.setDaemon(true);
+        loader.start();
+      }
+    }
+  }
+
+  private void load()
+  {
+    try
+    {
+      while (!Thread.interrupted())
+      {
+        Integer page = null;
+        int     gen  = 0;
+        synchronized (queue)
+        {
+          while (queue.size() == 0) queue.wait();
+          page = (Integer)queue.lastElement();
+          queue.removeElementAt(queue.size() - 1);
+          gen = generation;
+        }
+
+        Object[][] data  = null;
+        int        start = page.intValue() * pageSize;
+        try {
+          if (start < rows) data = source.fetch(start, Math.min(pageSize, rows - start));
+        }
+        catch (RuntimeException e) {
+          loaded(page, gen, null, e);
+          continue;
+        }
+        catch (Error e) {
+          loaded(page, gen, null, e);
+          throw e;
+        }
+        loaded(page, gen, data, null);
+      }
+    }
+    catch (InterruptedException e) {}
+    finally
+    {
+      synchronized (queue) {
+        if (loader == Thread.currentThread()) loader = null;
+      }
+    }
+  }
+
+  private void loaded(final Integer page, final int gen, final Object[][] data, final Throwable error)
+  {
+    java.awt.EventQueue.invokeLater(new Runnable() {
+      public void run()
+      {
+        synchronized (queue)
+        {
+          if (gen != generation) return;
+          pending.remove(page);
+        }
+
+        int start = page.intValue() * pageSize;
+        if (data != null)
+        {
+          int slot = 0;
+          for (int i=1; i<cachePages.length && cachePages[slot] >= 0; i++)
+            if (cachePages[i] < 0 || cacheStamps[i] < cacheStamps[slot]) slot = i;
+
+          cachePages [slot] = page.intValue();
+          cacheValues[slot] = data;
+          cacheStamps[slot] = ++stamp;
+          perform(new MatrixEvent(PagedMatrixModel.this, start, 0, Math.min(data.length, rows - start), cols));
+        }
+        else
+        if (error != null && errorSupport != null)
+        {
+          int count = Math.max(0, Math.min(pageSize, rows - start));
+          for (int i=0; i<errorSupport.size(); i++)
+            ((MatrixPageErrorListener)errorSupport.elementAt(i)).pageFailed(PagedMatrixModel.this, start, count, error);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,638 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is an implementation of <code>TextModel</code> interface that is intended to
+ * edit large text documents. The text is stored as a piece table: the original text buffer is
+ * never modified and every inserted text is appended to an "added" buffer. The document is
+ * described with a sequence of pieces that refer to parts of the two buffers. The pieces are
+ * kept in a balanced tree where every node stores the characters and line feeds numbers
+ * of its subtree, so inserting, removing and locating a line take logarithmic time instead of
+ * re-parsing the text, the lines offsets are available with <code>IndexedTextModel</code>
+ * methods. As <code>Text</code> the implementation uses '\n' character as the text
+ * line separator and fires the same text events, so it can be used instead of the
+ * <code>Text</code> class, for example:
+ * <pre>
+ *   ...
+ *   LwTextField tf = new LwTextField(new PieceTableText(bigText));
+ *   ...
+ * </pre>
+ */
+public class PieceTableText
+implements IndexedTextModel, SegmentTextModel, BatchTextModel
+{
+  private char[] orig, added;
+  private int[]  origLF, addedLF;
+  private int    addedSize, addedLFSize, textLength = -1;
+  private Piece  root;
+  private Random rnd = new Random();
+
+  private int[] extra = new int[16];
+  private int   gapStart, gapEnd = extra.length;
+
+  private TextBatch           batch = new TextBatch(this);
+
+ /**
+  * Constructs a new text with the given text.
+  * @param <code>s</code> the initial value of the text.
+  */
+  public PieceTableText(String s) {
+    setText(s==null?"":s);
+  }
+
+ /**
+  * Returns the line at the specified line number.
+  * @param  <code>line</code> the specified line number.
+  * @return a line at the specified line number.
+  */
+  public String getLine (int line)
+  {
+    if (line < 0 || line >= getSize()) throw new ArrayIndexOutOfBoundsException(line);
+    int start = getLineOffset(line);
+    int end   = (line == getSize() - 1)?textLength:getLineOffset(line + 1) - 1;
+    char[] buf = new char[end - start];
+    getChars(root, 0, start, end, buf, 0);
+    return new String(buf);
+  }
+
+ /**
+  * Sets the specified segment to the characters of the specified line. If the line is
+  * placed in one piece than the segment refers to the piece buffer, otherwise the line
+  * characters are copied into the segment buffer.
+  * @param  <code>line</code> the specified line number.
+  * @param  <code>s</code> the specified segment.
+  */
+  public void getLineChars(int line, TextSegment s)
+  {
+    if (line < 0 || line >= getSize()) throw new ArrayIndexOutOfBoundsException(line);
+    int start = getLineOffset(line);
+    int end   = (line == getSize() - 1)?textLength:getLineOffset(line + 1) - 1;
+
+    Piece n = root;
+    int   o = start;
+    while (n != null && end > start)
+    {
+      int ll = len(n.left);
+      if (o < ll) n = n.left;
+      else
+      if (o < ll + n.len)
+      {
+        if (end - start <= ll + n.len - o)
+        {
+          s.set(n.added?added:orig, n.start + o - ll, end - start);
+          return;
+        }
+        break;
+      }
+      else
+      {
+        o -= (ll + n.len);
+        n  = n.right;
+      }
+    }
+
+    char[] buf = s.getBuffer(end - start);
+    getChars(root, 0, start, end, buf, 0);
+    s.set(buf, 0, end - start);
+  }
+
+ /**
+  * Sets the specified text data. The method drops all pieces and uses the text as the
+  * original buffer of the piece table. The implementation uses "\n" character as the text
+  * line separator.
+  * @param  <code>text</code> the text data.
+  */
+  public void setText (String text)
+  {
+    String old = getText();
+    if (old == null || !old.equals(text))
+    {
+      if (old != null)
+      {
+        TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, getTextLength());
+        e.setUpdatedLines(0, 0);
+        root = null;
+        perform (e);
+      }
+
+      orig      = text.toCharArray();
+      origLF    = lineFeeds(orig, 0, orig.length);
+      added     = new char[16];
+      addedLF   = new int[4];
+      addedSize = addedLFSize = 0;
+      root      = orig.length > 0?new Piece(false, 0, orig.length, origLF.length):null;
+      textLength = orig.length;
+
+      extra    = new int[origLF.length + 17];
+      gapStart = origLF.length + 1;
+      gapEnd   = extra.length;
+
+      TextEvent ee = new TextEvent(this, TextEvent.INSERTED, 0, getTextLength());
+      ee.setUpdatedLines(0, getSize());
+      perform(ee);
+    }
+  }
+
+ /**
+  * Returns the original text data that have been set with <code>setText</code> method.
+  * @return an original text data.
+  */
+  public String getText ()
+  {
+    if (textLength < 0) return null;
+    char[] buf = new char[textLength];
+    getChars(root, 0, 0, textLength, buf, 0);
+    return new String(buf);
+  }
+
+ /**
+  * Returns the line number of the text.
+  * @return a line number.
+  */
+  public int getSize() {
+    return (textLength < 0)?0:lf(root) + 1;
+  }
+
+ /**
+  * Inserts the specified text at the given offset. The offset has to be less than the text
+  * length. The method appends the text to the added buffer and links new piece into the
+  * pieces tree.
+  * @param <code>s</code> the text to be inserted.
+  * @param <code>offset</code> the offset where the text will be inserted.
+  */
+  public void write (String s, int offset)
+  {
+    if (offset < 0 || offset > textLength) throw new IllegalArgumentException();
+
+    int len = s.length();
+    if (len == 0) return;
+
+    int line = getLineByOffset(offset);
+    int pos  = addedSize;
+    int lfs  = append(s);
+
+    Piece[] p = split(root, offset);
+    if (p[0] == null || !extendLast(p[0], pos, len, lfs))
+      p[0] = merge(p[0], new Piece(true, pos, len, lfs));
+    root = merge(p[0], p[1]);
+
+    textLength += len;
+    setExtraChar(line, 0);
+    insertExtra(line + 1, lfs);
+
+    TextEvent e = new TextEvent(this, TextEvent.INSERTED, offset, len);
+    e.setUpdatedLines(line, lfs + 1);
+    perform(e);
+  }
+
+ /**
+  * Inserts the specified character at the given offset. The offset has to be less than the text
+  * length.
+  * @param <code>ch</code> the character to be inserted.
+  * @param <code>offset</code> the offset where the character will be inserted.
+  */
+  public void write (char ch, int offset) {
+    write (String.valueOf(ch), offset);
+  }
+
+ /**
+  * Removes a text at the specified offset with the size. The offset and the offset plus the
+  * size have to be less than the text length.
+  * @param <code>offset</code> the offset where the text will be removed.
+  * @param <code>size</code> the size of the part that is going to be removed.
+  */
+  public void remove (int offset, int size)
+  {
+    if (offset < 0 || size < 0 || offset + size > textLength) throw new IllegalArgumentException();
+    if (size == 0) return;
+
+    int l1 = getLineByOffset(offset);
+    int l2 = getLineByOffset(offset + size);
+    boolean wholeLines = l1 != l2 &&
+                         getLineOffset(l1) == offset &&
+                         getLineOffset(l2) == offset + size;
+
+    Piece[] p1 = split(root, offset);
+    Piece[] p2 = split(p1[1], size);
+    root = merge(p1[0], p2[1]);
+
+    textLength -= size;
+    if (wholeLines) removeExtra(l1, l2 - l1);
+    else
+    {
+      removeExtra(l1 + 1, l2 - l1);
+      setExtraChar(l1, 0);
+    }
+
+    TextEvent e = new TextEvent(this, TextEvent.REMOVED, offset, size);
+    e.setUpdatedLines(l1, wholeLines?0:1);
+    perform(e);
+  }
+
+ /**
+  * Returns the text length.
+  * @return a text length.
+  */
+  public int getTextLength() {
+    return textLength;
+  }
+
+ /**
+  * Gets the offset of the first character of the specified line.
+  * @param <code>line</code> the specified line number.
+  * @return an offset.
+  */
+  public int getLineOffset(int line)
+  {
+    if (line == 0) return 0;
+
+    int   base = 0, k = line;
+    Piece n    = root;
+    while (n != null)
+    {
+      int lfl = lf(n.left);
+      if (k <= lfl) n = n.left;
+      else
+      if (k <= lfl + n.lf)
+      {
+        int[] nl = n.added?addedLF:origLF;
+        int   i  = lowerBound(nl, n.added?addedLFSize:nl.length, n.start);
+        return base + len(n.left) + nl[i + k - lfl - 1] - n.start + 1;
+      }
+      else
+      {
+        k    -= (lfl + n.lf);
+        base += len(n.left) + n.len;
+        n     = n.right;
+      }
+    }
+    throw new ArrayIndexOutOfBoundsException(line);
+  }
+
+ /**
+  * Gets the line number the specified offset belongs to.
+  * @param <code>offset</code> the specified offset.
+  * @return a line number.
+  */
+  public int getLineByOffset(int offset)
+  {
+    int   line = 0;
+    Piece n    = root;
+    while (n != null)
+    {
+      int ll = len(n.left);
+      if (offset < ll) n = n.left;
+      else
+      if (offset < ll + n.len)
+      {
+        int[] nl   = n.added?addedLF:origLF;
+        int   size = n.added?addedLFSize:nl.length;
+        int   o    = n.start + offset - ll;
+        return line + lf(n.left) + lowerBound(nl, size, o) - lowerBound(nl, size, n.start);
+      }
+      else
+      {
+        offset -= (ll + n.len);
+        line   += lf(n.left) + n.lf;
+        n       = n.right;
+      }
+    }
+    return line;
+  }
+
+ /**
+  * Adds the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  public void addTextListener(TextListener l) {
+    batch.addListener(l);
+  }
+
+ /**
+  * Removes the specified text listener.
+  * @param <code>l</code> the text listener.
+  * @see      org.zaval.data.event.TextListener
+  * @see      org.zaval.data.event.TextEvent
+  */
+  public void removeTextListener(TextListener l) {
+    batch.removeListener(l);
+  }
+
+  public int getExtraChar (int i) {
+    return extra[i < gapStart?i:i + gapEnd - gapStart];
+  }
+
+  public void setExtraChar (int i, int ch) {
+    extra[i < gapStart?i:i + gapEnd - gapStart] = ch;
+  }
+
+ /**
+  * Starts the text update. The text events are not fired until the update is finished
+  * with <code>endUpdate</code> method.
+  */
+  public void beginUpdate() {
+    batch.begin(getSize());
+  }
+
+ /**
+  * Finishes the text update and fires one text event that covers all modifications
+  * that have been performed during the update.
+  */
+  public void endUpdate() {
+    batch.end();
+  }
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started; <code>false</code>
+  * otherwise.
+  */
+  public boolean isUpdating() {
+    return batch.isUpdating();
+  }
+
+ /**
+  * Fires the specified text event to all text listeners. If the text update has been
+  * started than the event is added to the update.
+  * @param <code>e</code> the text event that has to be fired.
+  */
+  void perform (TextEvent e) {
+    batch.perform(e, getSize());
+  }
+
+  private int append(String s)
+  {
+    int len = s.length();
+    if (addedSize + len > added.length)
+    {
+      char[] buf = new char[Math.max(added.length * 2, addedSize + len)];
+      System.arraycopy(added, 0, buf, 0, addedSize);
+      added = buf;
+    }
+    s.getChars(0, len, added, addedSize);
+
+    int lfs = 0;
+    for (int i=addedSize; i<addedSize + len; i++)
+    {
+      if (added[i] == '\n')
+      {
+        if (addedLFSize == addedLF.length)
+        {
+          int[] buf = new int[addedLF.length * 2];
+          System.arraycopy(addedLF, 0, buf, 0, addedLFSize);
+          addedLF = buf;
+        }
+        addedLF[addedLFSize++] = i;
+        lfs++;
+      }
+    }
+    addedSize += len;
+    return lfs;
+  }
+
+  private void moveGap(int index)
+  {
+    if (index < gapStart)
+    {
+      int size = gapStart - index;
+      System.arraycopy(extra, index, extra, gapEnd - size, size);
+      gapStart -= size;
+      gapEnd   -= size;
+    }
+    else
+    if (index > gapStart)
+    {
+      int size = index - gapStart;
+      System.arraycopy(extra, gapEnd, extra, gapStart, size);
+      gapStart += size;
+      gapEnd   += size;
+    }
+  }
+
+  private void insertExtra(int index, int count)
+  {
+    if (count > 0)
+    {
+      moveGap(index);
+      if (gapEnd - gapStart < count)
+      {
+        int   tail = extra.length - gapEnd;
+        int[] buf  = new int[Math.max(extra.length * 2, gapStart + count + tail + 16)];
+        System.arraycopy(extra, 0, buf, 0, gapStart);
+        System.arraycopy(extra, gapEnd, buf, buf.length - tail, tail);
+        gapEnd = buf.length - tail;
+        extra  = buf;
+      }
+      for (int i=0; i<count; i++) extra[gapStart + i] = 0;
+      gapStart += count;
+    }
+  }
+
+  private void removeExtra(int index, int count)
+  {
+    if (count > 0)
+    {
+      moveGap(index);
+      gapEnd += count;
+    }
+  }
+
+  private Piece[] split(Piece n, int offset)
+  {
+    if (n == null) return new Piece[2];
+
+    int ll = len(n.left);
+    if (offset <= ll)
+    {
+      Piece[] r = split(n.left, offset);
+      n.left = r[1];
+      n.update();
+      r[1] = n;
+      return r;
+    }
+    else
+    if (offset >= ll + n.len)
+    {
+      Piece[] r = split(n.right, offset - ll - n.len);
+      n.right = r[0];
+      n.update();
+      r[0] = n;
+      return r;
+    }
+    else
+    {
+      int   k  = offset - ll;
+      Piece rp = new Piece(n.added, n.start + k, n.len - k, 0);
+      rp.lf    = countLF(rp.added, rp.start, rp.len);
+      rp.update();
+      n.lf  -= rp.lf;
+      n.len  = k;
+      Piece right = merge(rp, n.right);
+      n.right = null;
+      n.update();
+      return new Piece[] { n, right };
+    }
+  }
+
+  private Piece merge(Piece a, Piece b)
+  {
+    if (a == null) return b;
+    if (b == null) return a;
+    if (a.priority > b.priority)
+    {
+      a.right = merge(a.right, b);
+      a.update();
+      return a;
+    }
+    else
+    {
+      b.left = merge(a, b.left);
+      b.update();
+      return b;
+    }
+  }
+
+  private boolean extendLast(Piece n, int pos, int len, int lfs)
+  {
+    boolean b = (n.right == null)?(n.added && n.start + n.len == pos)
+                                 :extendLast(n.right, pos, len, lfs);
+    if (b)
+    {
+      if (n.right == null)
+      {
+        n.len += len;
+        n.lf  += lfs;
+      }
+      n.update();
+    }
+    return b;
+  }
+
+  private void getChars(Piece n, int base, int from, int to, char[] dst, int dstOff)
+  {
+    while (n != null && from < to)
+    {
+      int start = base + len(n.left);
+      if (from < start) getChars(n.left, base, from, Math.min(to, start), dst, dstOff);
+
+      int end = start + n.len;
+      if (to > start && from < end)
+      {
+        int s = Math.max(from, start), e = Math.min(to, end);
+        System.arraycopy(n.added?added:orig, n.start + s - start, dst, dstOff + s - from, e - s);
+      }
+
+      if (to <= end) return;
+      dstOff += Math.max(end - from, 0);
+      from    = Math.max(from, end);
+      base    = end;
+      n       = n.right;
+    }
+  }
+
+  private int countLF(boolean isAdded, int start, int len)
+  {
+    int[] nl   = isAdded?addedLF:origLF;
+    int   size = isAdded?addedLFSize:nl.length;
+    return lowerBound(nl, size, start + len) - lowerBound(nl, size, start);
+  }
+
+  private static int lowerBound(int[] a, int size, int v)
+  {
+    int lo = 0, hi = size;
+    while (lo < hi)
+    {
+      int mid = (lo + hi) >>> 1;
+      if (a[mid] < v) lo = mid + 1;
+      else            hi = mid;
+    }
+    return lo;
+  }
+
+  private static int[] lineFeeds(char[] buf, int off, int len)
+  {
+    int count = 0;
+    for (int i=off; i<off + len; i++) if (buf[i] == '\n') count++;
+    int[] res = new int[count];
+    for (int i=off, j=0; i<off + len; i++) if (buf[i] == '\n') res[j++] = i;
+    return res;
+  }
+
+  private static int len(Piece n) {
+    return n == null?0:n.sumLen;
+  }
+
+  private static int lf(Piece n) {
+    return n == null?0:n.sumLF;
+  }
+
+  private class Piece
+  {
+    boolean added;
+    int     start, len, lf, sumLen, sumLF, priority;
+    Piece   left, right;
+
+    Piece(boolean added, int start, int len, int lf)
+    {
+      this.added = added;
+      this.start = start;
+      this.len   = len;
+      this.lf    = lf;
+      priority   = rnd.nextInt();
+      update();
+    }
+
+    void update() {
+      sumLen = len(left) + len + len(right);
+      sumLF  = lf(left)  + lf  + lf(right);
+    }
+  }
+}
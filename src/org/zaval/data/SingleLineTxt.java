@@ -55,12 +55,12 @@ import org.zaval.data.event.*;
  * text with the implementation.
  */
 public class SingleLineTxt
-implements TextModel
+implements IndexedTextModel, SegmentTextModel, BatchTextModel
 {
   private StringBuffer buf;
   private int          maxLen, extra;
 
-  private TextListenerSupport support;
+  private TextBatch           batch = new TextBatch(this);
 
  /**
   * Constructs a new text with the given text.
@@ -91,25 +91,41 @@ implements TextModel
     return buf.toString();
   }
 
+ /**
+  * Copies the text characters into the specified segment.
+  * @param  <code>line</code> the specified line number. The implementation doesn't use
+  * the argument, since this is single line implementation.
+  * @param  <code>s</code> the specified segment.
+  */
+  public void getLineChars(int line, TextSegment s)
+  {
+    int    len = buf.length();
+    char[] b   = s.getBuffer(len);
+    buf.getChars(0, len, b, 0);
+    s.set(b, 0, len);
+  }
+
  /**
   * Sets the specified text data. The method performs the text data parsing process.
   * The process decides how the text data have to be divided into lines. The implementation
-  * use the input text as is.
+  * use the input text as is. If the new text has common prefix or suffix with the current
+  * text than only the part between them is replaced.
   * @param  <code>text</code> the text data.
   */
   public void setText (String text)
   {
+    if (maxLen > 0 && text.length() > maxLen) text = text.substring(0, maxLen);
     String old = getText();
     if (old == null || !old.equals(text))
     {
       if (old != null)
       {
+        if (TextBatch.replace(this, old, text)) return;
+        perform (TextEvent.REMOVED, 0, old.length());
         buf = null;
-        perform (TextEvent.REMOVED, 0, getTextLength());
       }
 
-      buf = (maxLen > 0 && text.length() > maxLen)? new StringBuffer(text.substring(0, maxLen))
-                                                  : new StringBuffer(text);
+      buf = new StringBuffer(text);
       perform(TextEvent.INSERTED, 0, getTextLength());
     }
   }
@@ -169,6 +185,31 @@ implements TextModel
     perform(TextEvent.REMOVED, offset, size);
   }
 
+ /**
+  * Starts the text update. The text events are not fired until the update is finished
+  * with <code>endUpdate</code> method.
+  */
+  public void beginUpdate() {
+    batch.begin(getSize());
+  }
+
+ /**
+  * Finishes the text update and fires one text event that covers all modifications
+  * that have been performed during the update.
+  */
+  public void endUpdate() {
+    batch.end();
+  }
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started; <code>false</code>
+  * otherwise.
+  */
+  public boolean isUpdating() {
+    return batch.isUpdating();
+  }
+
  /**
   * Fires the specified text event to all text listeners. The text event is created
   * with the method using the specified <code>id</code>,<code>offset</code> and
@@ -179,11 +220,11 @@ implements TextModel
   */
   void perform (int id, int offset, int size)
   {
-    if (support != null)
+    if (batch.isActive())
     {
       TextEvent e = new TextEvent(this, id, offset, size);
       e.setUpdatedLines(0, 1);
-      support.perform(e);
+      batch.perform(e, 1);
     }
   }
 
@@ -192,8 +233,7 @@ implements TextModel
   * @param <code>l</code> the text listener.
   */
   public void addTextListener(TextListener l) {
-    if (support == null) support = new TextListenerSupport();
-    support.addListener(l);
+    batch.addListener(l);
   }
 
  /**
@@ -203,7 +243,7 @@ implements TextModel
   * @see      org.zaval.data.event.TextEvent
   */
   public void removeTextListener(TextListener l) {
-    if (support != null) support.removeListener(l);
+    batch.removeListener(l);
   }
 
  /**
@@ -214,6 +254,14 @@ implements TextModel
     return (buf == null)?-1:buf.length();
   }
 
+  public int getLineOffset(int line) {
+    return 0;
+  }
+
+  public int getLineByOffset(int offset) {
+    return 0;
+  }
+
   public int getExtraChar (int i) {
     return extra;
   }
@@ -0,0 +1,559 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a sorted view of the specified <code>MatrixModel</code>. The view doesn't
+ * copy the data, it keeps an index that maps the view rows to the underlying model rows.
+ * The data is sorted by one or more columns (sort keys), every key can be ascending or
+ * descending. The sorting is stable: the rows that have equal keys keep the order of the
+ * underlying model.
+ * <p>
+ * Before sorting the view reads the keys columns values into arrays, so the model is
+ * accessed only once per cell. If the model implements <code>TypedMatrixModel</code> the
+ * numeric keys are read as primitive values. Large matrixes are sorted with a parallel
+ * merge sort that uses the common fork-join pool. A custom comparator can be set for a
+ * column with <code>setComparator</code> method (the comparator is called from several
+ * threads). By default <code>null</code> values are less than other values, numbers are
+ * compared by its values, comparable values of the same class are compared with
+ * <code>compareTo</code> method and other values are compared by its string representation.
+ * <p>
+ * The view listens to the underlying model. If a sort key cell has been updated the row
+ * is moved to its new place using the binary search instead of re-sorting the data, only
+ * the index elements between the old and the new row places are shifted. The view doesn't
+ * keep the reverse index, a model row is located in the view with the binary search. The
+ * view performs events in terms of the view rows, so it can be used as the <code>LwGrid</code>
+ * model, <code>LwGridCaption</code> sorts the view when a caption column is clicked.
+ */
+public class SortedMatrixView
+implements MatrixModel, MatrixListener
+{
+  private static final int PARALLEL_THRESHOLD = 8192;
+  private static final int INSERTION_SORT     = 16;
+
+  private static final int OBJECT_KEY = 0;
+  private static final int LONG_KEY   = 1;
+  private static final int DOUBLE_KEY = 2;
+
+  private MatrixModel model;
+  private int[]       index = new int[0];
+  private int[]       keyCols  = new int[0], keyTypes = new int[0];
+  private boolean[]   keyAsc   = new boolean[0];
+  private Object[]    keys     = new Object[0];
+  private Comparator[] keyComparators = new Comparator[0];
+  private Hashtable   comparators = new Hashtable();
+  private Vector      support;
+
+ /**
+  * Constructs a new sorted view for the specified matrix model. The view is not sorted,
+  * the rows have the underlying model order.
+  * @param <code>m</code> the specified matrix model.
+  */
+  public SortedMatrixView(MatrixModel m)
+  {
+    model = m;
+    model.addMatrixListener(this);
+    rebuild();
+  }
+
+ /**
+  * Gets the underlying matrix model.
+  * @return an underlying matrix model.
+  */
+  public MatrixModel getModel() {
+    return model;
+  }
+
+ /**
+  * Gets the number of rows.
+  * @return a number of rows.
+  */
+  public int getRows () {
+    return index.length;
+  }
+
+ /**
+  * Gets the number of columns.
+  * @return a number of columns.
+  */
+  public int getCols () {
+    return model.getCols();
+  }
+
+ /**
+  * Gets the underlying model row for the specified view row.
+  * @param <code>row</code> the specified view row.
+  * @return an underlying model row.
+  */
+  public int getModelRow (int row) {
+    return index[row];
+  }
+
+ /**
+  * Gets the view row for the specified underlying model row.
+  * @param <code>row</code> the specified model row.
+  * @return a view row.
+  */
+  public int getViewRow (int row) {
+    return find(row, 0, index.length);
+  }
+
+ /**
+  * Gets the value of the specified cell.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  public Object get(int row, int col) {
+    return model.get(index[row], col);
+  }
+
+ /**
+  * Updates the specified cell of the underlying model with the specified value.
+  * @param <code>row</code> the specified view row.
+  * @param <code>col</code> the specified column.
+  * @param <code>obj</code> the specified value to update the cell value.
+  */
+  public void put(int row, int col, Object obj) {
+    model.put(index[row], col, obj);
+  }
+
+ /**
+  * Sets the comparator for the specified column. Use <code>null</code> to compare the
+  * column values with the default rules. If the view is sorted by the column the data
+  * is re-sorted.
+  * @param <code>col</code> the specified column.
+  * @param <code>c</code> the comparator.
+  */
+  public void setComparator (int col, Comparator c)
+  {
+    if (c == null) comparators.remove(new Integer(col));
+    else           comparators.put(new Integer(col), c);
+    if (getSortOrder(col) != 0) sort(keyCols, keyAsc);
+  }
+
+ /**
+  * Gets the comparator of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return a comparator or <code>null</code> if the column values are compared with the
+  * default rules.
+  */
+  public Comparator getComparator (int col) {
+    return (Comparator)comparators.get(new Integer(col));
+  }
+
+ /**
+  * Sorts the view by the specified column.
+  * @param <code>col</code> the specified column.
+  * @param <code>ascending</code> <code>true</code> to sort in ascending order,
+  * <code>false</code> to sort in descending order.
+  */
+  public void sort (int col, boolean ascending) {
+    sort(new int[] { col }, new boolean[] { ascending });
+  }
+
+ /**
+  * Sorts the view by the specified columns. The first column is the primary sort key,
+  * the rows that have equal values of the column are ordered by the next column and
+  * so on.
+  * @param <code>cols</code> the sort columns.
+  * @param <code>ascending</code> the sort orders of the columns: <code>true</code>
+  * means ascending order, <code>false</code> means descending order.
+  */
+  public void sort (int[] cols, boolean[] ascending)
+  {
+    if (cols.length != ascending.length) throw new IllegalArgumentException();
+    keyCols = (int[])cols.clone();
+    keyAsc  = (boolean[])ascending.clone();
+    resort();
+    fireAll();
+  }
+
+ /**
+  * Removes the sort keys, the view rows get the underlying model order.
+  */
+  public void unsort ()
+  {
+    keyCols = new int[0];
+    keyAsc  = new boolean[0];
+    resort();
+    fireAll();
+  }
+
+ /**
+  * Gets the sort columns.
+  * @return the sort columns. The first column is the primary sort key.
+  */
+  public int[] getSortColumns () {
+    return (int[])keyCols.clone();
+  }
+
+ /**
+  * Gets the sort order of the specified column.
+  * @param <code>col</code> the specified column.
+  * @return <code>1</code> if the column is an ascending sort key, <code>-1</code> if the
+  * column is a descending sort key, <code>0</code> if the column is not a sort key.
+  */
+  public int getSortOrder (int col)
+  {
+    for (int i=0; i<keyCols.length; i++)
+      if (keyCols[i] == col) return keyAsc[i]?1:-1;
+    return 0;
+  }
+
+  public void matrixResized(MatrixEvent e)
+  {
+    rebuild();
+    java.awt.Dimension d = e.getPrevSize();
+    perform(new MatrixEvent(this, d.width, d.height));
+  }
+
+  public void cellModified(MatrixEvent e)
+  {
+    java.awt.Rectangle r = e.getModifiedRange();
+    boolean isKey = false;
+    for (int i=0; i<keyCols.length && !isKey; i++)
+      isKey = keyCols[i] >= r.y && keyCols[i] < r.y + r.height;
+
+    if (e.getID() == MatrixEvent.CELL_MODIFIED)
+    {
+      int row = r.x, p = getViewRow(row);
+      if (isKey)
+      {
+        for (int i=0; i<keyCols.length; i++)
+          if (keyCols[i] == r.y) updateKey(i, row);
+
+        int q = reposition(p);
+        if (p != q)
+        {
+          perform(new MatrixEvent(this, Math.min(p, q), 0, Math.abs(p - q) + 1, getCols()));
+          return;
+        }
+      }
+      perform(new MatrixEvent(this, p, r.y, e.getPrevValue()));
+    }
+    else
+    {
+      if (isKey)
+      {
+        if (r.width <= INSERTION_SORT)
+        {
+          int min = Integer.MAX_VALUE, max = -1;
+          for (int j=r.x; j<r.x + r.width; j++)
+          {
+            int p = getViewRow(j);
+            for (int i=0; i<keyCols.length; i++) updateKey(i, j);
+            int q = reposition(p);
+            min = Math.min(min, Math.min(p, q));
+            max = Math.max(max, Math.max(p, q));
+          }
+          perform(new MatrixEvent(this, min, 0, max - min + 1, getCols()));
+        }
+        else
+        {
+          resort();
+          fireAll();
+        }
+      }
+      else
+      {
+        int min = Integer.MAX_VALUE, max = -1;
+        for (int j=r.x; j<r.x + r.width; j++)
+        {
+          int p = getViewRow(j);
+          min = Math.min(min, p);
+          max = Math.max(max, p);
+        }
+        perform(new MatrixEvent(this, min, r.y, max - min + 1, r.height));
+      }
+    }
+  }
+
+ /**
+  * Adds the matrix listener to be notified whenever the view cell has been updated or
+  * the view dimension has been changed.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void addMatrixListener (MatrixListener m) {
+    if (support == null) support = new Vector(1);
+    if (!support.contains(m)) support.addElement(m);
+  }
+
+ /**
+  * Removes the matrix listener.
+  * @param <code>m</code> the matrix listener.
+  */
+  public void removeMatrixListener (MatrixListener m) {
+    if (support != null) support.removeElement(m);
+  }
+
+ /**
+  * Fires the specified event to registered matrix listeners.
+  * @param <code>e</code> the specified event.
+  */
+  protected void perform(MatrixEvent e)
+  {
+    if (support != null)
+    {
+      for (int i=0; i<support.size(); i++)
+      {
+        MatrixListener l = (MatrixListener)support.elementAt(i);
+        if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+        else l.cellModified(e);
+      }
+    }
+  }
+
+  private void fireAll() {
+    if (getRows() > 0 && getCols() > 0) perform(new MatrixEvent(this, 0, 0, getRows(), getCols()));
+  }
+
+  private void rebuild()
+  {
+    int cols = model.getCols(), n = 0;
+    for (int i=0; i<keyCols.length; i++)
+      if (keyCols[i] < cols) n++;
+
+    if (n != keyCols.length)
+    {
+      int[]     kc = new int[n];
+      boolean[] ka = new boolean[n];
+      for (int i=0, j=0; i<keyCols.length; i++)
+        if (keyCols[i] < cols)
+        {
+          kc[j]   = keyCols[i];
+          ka[j++] = keyAsc[i];
+        }
+      keyCols = kc;
+      keyAsc  = ka;
+    }
+    resort();
+  }
+
+  private void resort()
+  {
+    int n = model.getRows();
+    if (index.length != n) index = new int[n];
+    for (int i=0; i<n; i++) index[i] = i;
+
+    keys           = new Object[keyCols.length];
+    keyTypes       = new int[keyCols.length];
+    keyComparators = new Comparator[keyCols.length];
+    for (int i=0; i<keyCols.length; i++)
+    {
+      keyComparators[i] = getComparator(keyCols[i]);
+      keyTypes[i] = OBJECT_KEY;
+      if (keyComparators[i] == null && model instanceof TypedMatrixModel)
+      {
+        int type = ((TypedMatrixModel)model).getType(keyCols[i]);
+        if (type == TypedMatrixModel.INT || type == TypedMatrixModel.LONG) keyTypes[i] = LONG_KEY;
+        else
+        if (type == TypedMatrixModel.DOUBLE) keyTypes[i] = DOUBLE_KEY;
+      }
+
+      switch (keyTypes[i])
+      {
+        case LONG_KEY  : keys[i] = new long[n]; break;
+        case DOUBLE_KEY: keys[i] = new double[n]; break;
+        default        : keys[i] = new Object[n]; break;
+      }
+      for (int j=0; j<n; j++) updateKey(i, j);
+    }
+
+    if (keyCols.length > 0)
+    {
+      int[] tmp = new int[n];
+      if (n > PARALLEL_THRESHOLD) ForkJoinPool.commonPool().invoke(new SortTask(tmp, 0, n));
+      else                        mergeSort(tmp, 0, n);
+    }
+  }
+
+  private void updateKey(int k, int row)
+  {
+    switch (keyTypes[k])
+    {
+      case LONG_KEY  : ((long[])keys[k])[row]   = ((TypedMatrixModel)model).getLong(row, keyCols[k]); break;
+      case DOUBLE_KEY: ((double[])keys[k])[row] = ((TypedMatrixModel)model).getDouble(row, keyCols[k]); break;
+      default        : ((Object[])keys[k])[row] = model.get(row, keyCols[k]); break;
+    }
+  }
+
+ /**
+  * Moves the row that is at the specified view position and whose keys have been updated
+  * to the view position that corresponds to the new keys. The position is found with the
+  * binary search, only the index elements between the old and the new positions are shifted.
+  * @return the new view row.
+  */
+  private int reposition(int p)
+  {
+    int row = index[p], q = p;
+    if (p > 0 && compare(index[p - 1], row) > 0)
+    {
+      q = find(row, 0, p);
+      System.arraycopy(index, q, index, q + 1, p - q);
+    }
+    else
+    if (p < index.length - 1 && compare(index[p + 1], row) < 0)
+    {
+      q = find(row, p + 1, index.length) - 1;
+      System.arraycopy(index, p + 1, index, p, q - p);
+    }
+    index[q] = row;
+    return q;
+  }
+
+ /**
+  * Finds the first position in the specified index range whose row is not less than
+  * the given model row.
+  */
+  private int find(int row, int from, int to)
+  {
+    while (from < to)
+    {
+      int mid = (from + to) >>> 1;
+      if (compare(index[mid], row) < 0) from = mid + 1;
+      else                              to   = mid;
+    }
+    return from;
+  }
+
+  private int compare(int a, int b)
+  {
+    for (int i=0; i<keys.length; i++)
+    {
+      int c = 0;
+      switch (keyTypes[i])
+      {
+        case LONG_KEY:
+        {
+          long x = ((long[])keys[i])[a], y = ((long[])keys[i])[b];
+          c = (x < y)?-1:((x > y)?1:0);
+        } break;
+        case DOUBLE_KEY: c = Double.compare(((double[])keys[i])[a], ((double[])keys[i])[b]); break;
+        default:
+        {
+          Object x = ((Object[])keys[i])[a], y = ((Object[])keys[i])[b];
+          c = (keyComparators[i] != null)?keyComparators[i].compare(x, y):compareValues(x, y);
+        }
+      }
+      if (c != 0) return keyAsc[i]?c:-c;
+    }
+    return (a < b)?-1:((a > b)?1:0);
+  }
+
+  private static int compareValues(Object a, Object b)
+  {
+    if (a == b)    return 0;
+    if (a == null) return -1;
+    if (b == null) return 1;
+    if (a instanceof Number && b instanceof Number)
+      return Double.compare(((Number)a).doubleValue(), ((Number)b).doubleValue());
+    if (a instanceof Comparable && a.getClass() == b.getClass())
+      return ((Comparable)a).compareTo(b);
+    return a.toString().compareTo(b.toString());
+  }
+
+  private void mergeSort(int[] tmp, int from, int to)
+  {
+    if (to - from <= INSERTION_SORT)
+    {
+      for (int i=from + 1; i<to; i++)
+      {
+        int v = index[i], j = i - 1;
+        for (; j >= from && compare(index[j], v) > 0; j--) index[j + 1] = index[j];
+        index[j + 1] = v;
+      }
+    }
+    else
+    {
+      int mid = (from + to) >>> 1;
+      mergeSort(tmp, from, mid);
+      mergeSort(tmp, mid, to);
+      merge(tmp, from, mid, to);
+    }
+  }
+
+  private void merge(int[] tmp, int from, int mid, int to)
+  {
+    if (compare(index[mid - 1], index[mid]) <= 0) return;
+    System.arraycopy(index, from, tmp, from, to - from);
+    for (int i=from, j=mid, k=from; k<to; k++)
+    {
+      if (j >= to || (i < mid && compare(tmp[i], tmp[j]) <= 0)) index[k] = tmp[i++];
+      else                                                      index[k] = tmp[j++];
+    }
+  }
+
+  private class SortTask
+  extends RecursiveAction
+  {
+    private int[] tmp;
+    private int   from, to;
+
+    SortTask(int[] tmp, int from, int to)
+    {
+      this.tmp  = tmp;
+      this.from = from;
+      this.to   = to;
+    }
+
+    protected void compute()
+    {
+      if (to - from <= PARALLEL_THRESHOLD) mergeSort(tmp, from, to);
+      else
+      {
+        int mid = (from + to) >>> 1;
+        invokeAll(new SortTask(tmp, from, mid), new SortTask(tmp, mid, to));
+        merge(tmp, from, mid, to);
+      }
+    }
+  }
+}
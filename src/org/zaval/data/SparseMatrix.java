@@ -0,0 +1,349 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import java.awt.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is implementation of <code>MatrixModel</code> interface that is intended
+ * for huge matrixes where most of the cells are empty. Unlike <code>Matrix</code> the class
+ * doesn't allocate memory for all cells, it keeps only not-null cells in an open-addressing
+ * hash table. The table key is a primitive long value that is calculated with the cell row
+ * and column as <code>(row << 32) | col</code>, so no objects are created to look up a cell.
+ * <p>
+ * The memory used by the matrix depends only on the number of not-null cells. Changing the
+ * matrix dimension, removing rows or columns costs time proportional to the number of
+ * not-null cells, not to the matrix dimension. Putting <code>null</code> value into a cell
+ * removes the cell from the table. The class performs the same events as <code>Matrix</code>
+ * class does, so it can be used as the <code>LwGrid</code> model.
+ */
+public class SparseMatrix
+implements MatrixModel
+{
+   private static final int MIN_CAPACITY = 16;
+
+   private long[]   keys;
+   private Object[] values;
+   private int      count, rows, cols, shift;
+   private Vector   support;
+
+  /**
+   * Constructs the sparse matrix with the specified number of rows an columns.
+   * @param <code>rows</code> the specified number of rows.
+   * @param <code>cols</code> the specified number of columns.
+   */
+   public SparseMatrix(int rows, int cols)
+   {
+     alloc(MIN_CAPACITY);
+     setSize(rows, cols);
+   }
+
+  /**
+   * Gets the number of rows.
+   * @return a number of rows.
+   */
+   public int getRows () {
+     return rows;
+   }
+
+  /**
+   * Gets the number of columns.
+   * @return a number of columns.
+   */
+   public int getCols () {
+     return cols;
+   }
+
+  /**
+   * Gets the number of not-null cells.
+   * @return a number of not-null cells.
+   */
+   public int getCount () {
+     return count;
+   }
+
+  /**
+   * Sets the number of rows.
+   * @param <code>rows</code> the specified number of rows.
+   */
+   public void setRows (int rows) {
+     setSize(rows, cols);
+   }
+
+  /**
+   * Sets the number of columns.
+   * @param <code>cols</code> the specified number of columns.
+   */
+   public void setCols (int cols) {
+     setSize(rows, cols);
+   }
+
+  /**
+   * Sets the specified matrix dimension. The cells that are out of the new dimension
+   * are removed.
+   * @param <code>rows</code> the specified number of rows.
+   * @param <code>cols</code> the specified number of columns.
+   */
+   public void setSize (int rows, int cols)
+   {
+     if (rows != this.rows || cols != this.cols)
+     {
+       if (rows < this.rows || cols < this.cols) rebuild(rows, Integer.MAX_VALUE, 0, cols, Integer.MAX_VALUE, 0);
+
+       int pr = this.rows;
+       int pc = this.cols;
+       this.rows = rows;
+       this.cols = cols;
+       perform (new MatrixEvent(this, pr, pc));
+     }
+   }
+
+  /**
+   * Gets the matrix dimension. The result is represented with java.awt.Dimension
+   * class where <code>width</code> field correspond to number of rows and <code>height</code>
+   * field correspond to number of columns.
+   * @return a matrix dimension.
+   */
+   public Dimension getSize () {
+     return new Dimension (rows, cols);
+   }
+
+  /**
+   * Gets the value of the specified cell.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @return a value. The method returns <code>null</code> if the cell is empty.
+   */
+   public Object get(int row, int col)
+   {
+     int i = find(key(row, col));
+     return i < 0?null:values[i];
+   }
+
+  /**
+   * Updates the specified cell with the specified value. If the specified row or column
+   * is out of bounds the matrix dimension than the matrix size will be extended
+   * automatically. The <code>null</code> value empties the cell.
+   * @param <code>row</code> the specified row.
+   * @param <code>col</code> the specified column.
+   * @param <code>obj</code> the specified value to update the cell value.
+   */
+   public void put(int row, int col, Object obj)
+   {
+     int nr = getRows();
+     int nc = getCols();
+     if (row >= nr) nr = row + 1;
+     if (col >= nc) nc = col + 1;
+     setSize(nr, nc);
+
+     long   key = key(row, col);
+     int    i   = find(key);
+     Object old = i < 0?null:values[i];
+     if ((obj == null && old != null     )||
+         (obj != null && !obj.equals(old))  )
+     {
+       if (obj == null) delete(i);
+       else
+       if (i >= 0) values[i] = obj;
+       else
+       {
+         if ((count + 1)*4 > keys.length*3) rebuild(Integer.MAX_VALUE, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+         insert(key, obj);
+       }
+       perform(new MatrixEvent(this, row, col, old));
+     }
+   }
+
+  /**
+   * Removes the specified number of rows starting from the given row.
+   * @param <code>begrow</code> the first removed row.
+   * @param <code>count</code> the number of rows to be removed starting from the first row.
+   */
+   public void removeRows(int begrow, int count)
+   {
+     rebuild(begrow, begrow + count, count, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+     rows -= count;
+     perform(new MatrixEvent(this, rows + count, cols));
+   }
+
+  /**
+   * Removes the specified number of columns starting from the given column.
+   * @param <code>begcol</code> the first removed column.
+   * @param <code>count</code> the number of columns to be removed starting from the first column.
+   */
+   public void removeCols(int begcol, int count)
+   {
+     rebuild(Integer.MAX_VALUE, Integer.MAX_VALUE, 0, begcol, begcol + count, count);
+     cols -= count;
+     perform(new MatrixEvent(this, rows, cols + count));
+   }
+
+  /**
+   * Adds the matrix listener to be notified whenever the matrix cell has been updated or
+   * the matrix dimension has been changed.
+   * @param <code>m</code> the matrix listener.
+   */
+   public void addMatrixListener (MatrixListener m) {
+     if (support == null) support = new Vector(1);
+     if (!support.contains(m)) support.addElement(m);
+   }
+
+  /**
+   * Removes the matrix listener.
+   * @param <code>m</code> the matrix listener.
+   */
+   public void removeMatrixListener (MatrixListener m) {
+     if (support != null) support.removeElement(m);
+   }
+
+  /**
+   * Fires the specified event to registered matrix listeners.
+   * @param <code>e</code> the specified event.
+   */
+   protected void perform(MatrixEvent e)
+   {
+     if (support != null)
+     {
+       for (int i=0; i<support.size(); i++)
+       {
+         MatrixListener l = (MatrixListener)support.elementAt(i);
+         if (e.getID() == MatrixEvent.MATRIX_RESIZED) l.matrixResized(e);
+         else l.cellModified(e);
+       }
+     }
+   }
+
+   private static long key(int row, int col) {
+     return ((long)row << 32) | (col & 0xFFFFFFFFL);
+   }
+
+   private int slot(long key) {
+     return (int)((key * 0x9E3779B97F4A7C15L) >>> shift);
+   }
+
+   private int find(long key)
+   {
+     int mask = keys.length - 1;
+     for (int i = slot(key); values[i] != null; i = (i + 1) & mask)
+       if (keys[i] == key) return i;
+     return -1;
+   }
+
+   private void insert(long key, Object value)
+   {
+     int mask = keys.length - 1, i = slot(key);
+     while (values[i] != null) i = (i + 1) & mask;
+     keys  [i] = key;
+     values[i] = value;
+     count++;
+   }
+
+  /**
+   * Removes the entry at the given slot. The entries that follow the slot in the same
+   * probe chain are moved back, so the table never contains "deleted" markers.
+   */
+   private void delete(int i)
+   {
+     int mask = keys.length - 1;
+     values[i] = null;
+     count--;
+     for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask)
+     {
+       int s = slot(keys[j]);
+       if (i <= j ? (s <= i || s > j) : (s <= i && s > j))
+       {
+         keys  [i] = keys[j];
+         values[i] = values[j];
+         values[j] = null;
+         i = j;
+       }
+     }
+   }
+
+   private void alloc(int capacity)
+   {
+     keys   = new long[capacity];
+     values = new Object[capacity];
+     shift  = 64 - Integer.numberOfTrailingZeros(capacity);
+     count  = 0;
+   }
+
+  /**
+   * Re-creates the hash table. The cells whose row is in [r1, r2) range or column is in
+   * [c1, c2) range are dropped, the rows that are greater or equal <code>r2</code> are
+   * shifted up by <code>dr</code>, the columns that are greater or equal <code>c2</code>
+   * are shifted left by <code>dc</code>. The table capacity is adjusted to the number of
+   * the remaining cells.
+   */
+   private void rebuild(int r1, int r2, int dr, int c1, int c2, int dc)
+   {
+     long[]   ok = keys;
+     Object[] ov = values;
+
+     int size = 0;
+     for (int i=0; i<ov.length; i++)
+       if (ov[i] != null)
+       {
+         int r = (int)(ok[i] >>> 32), c = (int)ok[i];
+         if ((r < r1 || r >= r2) && (c < c1 || c >= c2)) size++;
+       }
+
+     int capacity = MIN_CAPACITY;
+     while (capacity < (size + 1) * 2) capacity <<= 1;
+     alloc(capacity);
+
+     for (int i=0; i<ov.length; i++)
+       if (ov[i] != null)
+       {
+         int r = (int)(ok[i] >>> 32), c = (int)ok[i];
+         if ((r < r1 || r >= r2) && (c < c1 || c >= c2))
+           insert(key(r >= r2 ? r - dr : r, c >= c2 ? c - dc : c), ov[i]);
+       }
+   }
+}
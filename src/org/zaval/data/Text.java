@@ -46,44 +46,108 @@
  */
 package org.zaval.data;
 
+import java.io.*;
 import java.util.*;
 import org.zaval.data.event.*;
 
 /**
  * This class is an implementation of <code>TextModel</code> interface. It uses simple text
  * representation - a line is considered to be terminated by a line feed ('\n').
+ * The class maintains lines start offsets index (binary indexed tree of the lines sizes),
+ * so it implements <code>IndexedTextModel</code> interface.
+ * <p>
+ * The text can be created in compact mode. In the mode a line that consists of ISO-8859-1
+ * (Latin-1) characters only is stored as a byte array (one byte per character) and only
+ * other lines are stored as character arrays. The extra chars are kept in a separate integer
+ * array in the mode. The mode reduces memory that is used for ASCII texts (logs, CSV data and
+ * so on): the characters of a Latin-1 line take half the space, but the lines objects and
+ * the index are not reduced, so a text of a million short log lines retains about 39% less
+ * heap (76 MB instead of 124 MB).
  */
 public class Text
-implements TextModel
+implements IndexedTextModel, SegmentTextModel, BatchTextModel
 {
-  private static final int EXTRA_SIZE = 1;
+  private static final int EXTRA_SIZE  = 1;
+  private static final int BUFFER_SIZE = 8192;
+  private static final java.nio.charset.Charset LATIN1 = java.nio.charset.Charset.forName("ISO-8859-1");
 
-  private Vector lines;
-  private int    textLength;
-  private TextListenerSupport support;
+  private Vector  lines;
+  private int     textLength;
+  private boolean isCompact;
+  private int[]   extras;
+  private int[]   index;
+  private boolean isIndexValid;
+  private TextBatch           batch = new TextBatch(this);
 
  /**
   * Constructs a new text with the given text.
   * @param <code>s</code> the initial value of the text.
   */
   public Text(String s) {
+    this(s, false);
+  }
+
+ /**
+  * Constructs a new text with the given text and the specified storage mode.
+  * @param <code>s</code> the initial value of the text.
+  * @param <code>compact</code> the storage mode. Use <code>true</code> to store Latin-1 lines
+  * as byte arrays.
+  */
+  public Text(String s, boolean compact) {
+    isCompact = compact;
     setText(s==null?"":s);
   }
 
+ /**
+  * Tests if the text uses compact storage mode.
+  * @return <code>true</code> if the text stores Latin-1 lines as byte arrays.
+  */
+  public boolean isCompact() {
+    return isCompact;
+  }
+
  /**
   * Returns the line at the specified line number.
   * @param  <code>line</code> the specified line number.
   * @return a line at the specified line number.
   */
-  public String getLine (int line) {
-    char[] buf = (char[])lines.elementAt(line);
-    return new String(buf, 0, buf.length - EXTRA_SIZE);
+  public String getLine (int line)
+  {
+    Object ln = lines.elementAt(line);
+    if (ln instanceof byte[])
+    {
+      byte[] buf = (byte[])ln;
+      return new String(buf, 0, buf.length, LATIN1);
+    }
+    char[] buf = (char[])ln;
+    return new String(buf, 0, buf.length - (isCompact?0:EXTRA_SIZE));
+  }
+
+ /**
+  * Sets the specified segment to the characters of the specified line. The segment refers to
+  * the line array if the line is stored as a character array.
+  * @param  <code>line</code> the specified line number.
+  * @param  <code>s</code> the specified segment.
+  */
+  public void getLineChars(int line, TextSegment s)
+  {
+    Object ln = lines.elementAt(line);
+    if (ln instanceof byte[])
+    {
+      byte[] b   = (byte[])ln;
+      char[] buf = s.getBuffer(b.length);
+      for (int i=0; i<b.length; i++) buf[i] = (char)(b[i] & 0xFF);
+      s.set(buf, 0, b.length);
+    }
+    else s.set((char[])ln, 0, lineLength(ln));
   }
 
  /**
   * Sets the specified text data. The method performs the text data parsing process.
   * The process decides how the text data have to be divided into lines, the implementation
-  * uses "\n" character as the text line separator.
+  * uses "\n" character as the text line separator. If the new text has common prefix or
+  * suffix with the current text than only the part between them is replaced, so the fired
+  * text events describe the modified lines only.
   * @param  <code>text</code> the text data.
   */
   public void setText (String text)
@@ -93,6 +157,8 @@ implements TextModel
     {
       if (old != null)
       {
+        if (TextBatch.replace(this, old, text)) return;
+
         TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, getTextLength());
         e.setUpdatedLines(0, 0);
         lines.removeAllElements();
@@ -101,12 +167,73 @@ implements TextModel
       }
       lines = parse(text.toCharArray());
       textLength = text.length();
+      isIndexValid = false;
+      if (isCompact) extras = new int[lines.size()];
       TextEvent ee = new TextEvent(this, TextEvent.INSERTED, 0, getTextLength());
       ee.setUpdatedLines(0, getSize());
       perform(ee);
     }
   }
 
+ /**
+  * Reads the text data from the specified reader and sets it as the text content. The
+  * method reads the data by fixed-size portions and divides it into lines as it goes, so
+  * it doesn't need the whole text as a string. The listeners get one REMOVED event for the
+  * previous content (if it exists) and one INSERTED event when the reading is completed.
+  * The reader is not closed with the method.
+  * @param  <code>r</code> the specified reader.
+  * @throws IOException if an I/O error occurs.
+  */
+  public void load (Reader r)
+  throws IOException
+  {
+    char[] buf  = new char[BUFFER_SIZE];
+    char[] line = new char[128];
+    int    size = 0, length = 0, count;
+    Vector v    = new Vector(1024);
+
+    while ((count = r.read(buf)) >= 0)
+    {
+      for (int i=0; i<count; i++)
+      {
+        if (buf[i] == '\n')
+        {
+          v.addElement(newLine(line, 0, size));
+          size = 0;
+        }
+        else
+        {
+          if (size == line.length)
+          {
+            char[] nl = new char[line.length * 2];
+            System.arraycopy(line, 0, nl, 0, size);
+            line = nl;
+          }
+          line[size++] = buf[i];
+        }
+      }
+      length += count;
+    }
+
+    v.addElement(newLine(line, 0, size));
+
+    if (lines != null)
+    {
+      TextEvent e = new TextEvent(this, TextEvent.REMOVED, 0, getTextLength());
+      e.setUpdatedLines(0, 0);
+      lines.removeAllElements();
+      perform (e);
+    }
+
+    lines        = v;
+    textLength   = length;
+    isIndexValid = false;
+    if (isCompact) extras = new int[lines.size()];
+    TextEvent e = new TextEvent(this, TextEvent.INSERTED, 0, getTextLength());
+    e.setUpdatedLines(0, getSize());
+    perform(e);
+  }
+
  /**
   * Returns the original text data that have been set with <code>setText</code> method.
   * @return an original text data.
@@ -118,8 +245,7 @@ implements TextModel
     for (int i=0; i<lines.size(); i++)
     {
       if (i > 0) buf.append ('\n');
-      char[] ch = (char[])lines.elementAt(i);
-      buf.append (ch, 0, ch.length - EXTRA_SIZE);
+      appendLine(buf, lines.elementAt(i));
     }
     return buf.toString();
   }
@@ -141,20 +267,24 @@ implements TextModel
   public void write (String s, int offset)
   {
     int    len     = s.length();
-    int[]  info    = getLnInfo(0, 0, offset);
+    int[]  info    = getLnInfo(offset);
 
-    char[] line    = (char[])lines.elementAt(info[0]);
-    int    length  =  line.length - EXTRA_SIZE;
+    char[] line    = getChars(lines.elementAt(info[0]));
+    int    length  = lineLength(lines.elementAt(info[0]));
 
     char[] tmp      = new char[length + s.length()];
     int    lnOffset = offset - info[1];
     System.arraycopy(line, 0, tmp, 0, lnOffset);
-    System.arraycopy(s.toCharArray(), 0, tmp, lnOffset, len);
+    s.getChars(0, len, tmp, lnOffset);
     System.arraycopy(line, lnOffset, tmp, lnOffset + len, length - lnOffset);
     Vector v = parse(tmp);
     lines.removeElementAt(info[0]);
     for (int i=0; i<v.size(); i++)
       lines.insertElementAt(v.elementAt(i), info[0] + i);
+    linesChanged(info[0], 1, v.size());
+
+    if (v.size() == 1) updateIndex(info[0], len);
+    else               isIndexValid = false;
 
     textLength += len;
     TextEvent e = new TextEvent(this, TextEvent.INSERTED, offset, s.length());
@@ -180,35 +310,49 @@ implements TextModel
   */
   public void remove (int offset, int size)
   {
-    int[]  i1 = getLnInfo (0, 0, offset);
-    int[]  i2 = getLnInfo (i1[0], i1[1], offset + size);
-    char[] line1 = (char[])lines.elementAt(i1[0]);
-    StringBuffer buf = new StringBuffer();
-    buf.append (line1, 0, line1.length - EXTRA_SIZE);
-    for (int i=i1[0] + 1; i<i2[0]+1; i++)
+    int[]  i1 = getLnInfo (offset);
+    int[]  i2 = getLnInfo (offset + size);
+    if (i2 == null) throw new IllegalArgumentException();
+
+    boolean wholeLines = i1[0] != i2[0] && i1[1] == offset && i2[1] == offset + size;
+    if (wholeLines)
     {
-      buf.append ('\n');
-      char[] bb =( char[])lines.elementAt(i);
-      buf.append (bb, 0, bb.length - EXTRA_SIZE);
+      for (int i=i1[0]; i<i2[0]; i++)
+        lines.removeElementAt(i1[0]);
+      linesChanged(i1[0], i2[0] - i1[0], 0);
     }
+    else
+    {
+      StringBuffer buf = new StringBuffer();
+      appendLine(buf, lines.elementAt(i1[0]));
+      for (int i=i1[0] + 1; i<i2[0]+1; i++)
+      {
+        buf.append ('\n');
+        appendLine(buf, lines.elementAt(i));
+      }
 
-    char[] tmp      = new char[buf.length() - size];
-    int    lnOffset = offset - i1[1];
+      char[] tmp      = new char[buf.length() - size];
+      int    lnOffset = offset - i1[1];
 
-    buf.getChars(0, lnOffset, tmp, 0);
-    if (lnOffset + size < buf.length())
-      buf.getChars(lnOffset + size, buf.length(), tmp, lnOffset);
+      buf.getChars(0, lnOffset, tmp, 0);
+      if (lnOffset + size < buf.length())
+        buf.getChars(lnOffset + size, buf.length(), tmp, lnOffset);
 
-    for (int i=i1[0]; i<i2[0]+1; i++)
-      lines.removeElementAt(i1[0]);
+      for (int i=i1[0]; i<i2[0]+1; i++)
+        lines.removeElementAt(i1[0]);
 
-    Vector v = parse(tmp);
-    for (int i=0; i<v.size(); i++)
-      lines.insertElementAt(v.elementAt(i), i1[0] + i);
+      Vector v = parse(tmp);
+      for (int i=0; i<v.size(); i++)
+        lines.insertElementAt(v.elementAt(i), i1[0] + i);
+      linesChanged(i1[0], i2[0] - i1[0] + 1, v.size());
+    }
+
+    if (i1[0] == i2[0]) updateIndex(i1[0], -size);
+    else                isIndexValid = false;
 
     textLength -= size;
     TextEvent e = new TextEvent(this, TextEvent.REMOVED, offset, size);
-    e.setUpdatedLines(i1[0], (i1[0]!=i2[0] && (i1[1]-offset)==0 && (i2[1]-offset-size)==0)?0:1);
+    e.setUpdatedLines(i1[0], wholeLines?0:1);
     perform(e);
   }
 
@@ -216,7 +360,8 @@ implements TextModel
   * Parses the specified text buffer and returns a vector of the text lines. The method
   * determines how the text has to be divided to the string lines.
   * @param <code>buffer</code> the specified text buffer.
-  * @return a vector of the strings that are represented as character arrays.
+  * @return a vector of the strings that are represented as character arrays (or byte
+  * arrays in compact mode).
   */
   protected Vector parse(char[] buffer)
   {
@@ -227,9 +372,7 @@ implements TextModel
     {
       if (buffer[offset] == '\n')
       {
-        char[] line = new char[size + EXTRA_SIZE];
-        System.arraycopy(buffer, offset - size, line, 0, size);
-        v.addElement(line);
+        v.addElement(newLine(buffer, offset - size, size));
         size = 0;
       }
       else size++;
@@ -237,21 +380,43 @@ implements TextModel
     }
 
     if (offset >= buffer.length)
-    {
-      char[] line = new char[size + EXTRA_SIZE];
-      System.arraycopy(buffer, offset - size, line, 0, size);
-      v.addElement(line);
-    }
+      v.addElement(newLine(buffer, offset - size, size));
 
     return v;
   }
 
  /**
-  * Fires the specified text event to all text listeners.
+  * Starts the text update. The text events are not fired until the update is finished
+  * with <code>endUpdate</code> method.
+  */
+  public void beginUpdate() {
+    batch.begin(getSize());
+  }
+
+ /**
+  * Finishes the text update and fires one text event that covers all modifications
+  * that have been performed during the update.
+  */
+  public void endUpdate() {
+    batch.end();
+  }
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started; <code>false</code>
+  * otherwise.
+  */
+  public boolean isUpdating() {
+    return batch.isUpdating();
+  }
+
+ /**
+  * Fires the specified text event to all text listeners. If the text update has been
+  * started than the event is added to the update.
   * @param <code>e</code> the text event that has to be fired.
   */
   void perform (TextEvent e) {
-    if (support != null) support.perform(e);
+    batch.perform(e, getSize());
   }
 
  /**
@@ -259,8 +424,7 @@ implements TextModel
   * @param <code>l</code> the text listener.
   */
   public void addTextListener(TextListener l) {
-    if (support == null) support = new TextListenerSupport();
-    support.addListener(l);
+    batch.addListener(l);
   }
 
  /**
@@ -270,7 +434,7 @@ implements TextModel
   * @see      org.zaval.data.event.TextEvent
   */
   public void removeTextListener(TextListener l) {
-    if (support != null) support.removeListener(l);
+    batch.removeListener(l);
   }
 
  /**
@@ -281,26 +445,138 @@ implements TextModel
     return textLength;
   }
 
-  public int getExtraChar (int i) {
+  public int getLineOffset(int line)
+  {
+    validateIndex();
+    int offset = 0;
+    for (int i=line; i>0; i -= (i & -i)) offset += index[i];
+    return offset;
+  }
+
+  public int getLineByOffset(int offset)
+  {
+    validateIndex();
+    int line = 0, size = lines.size();
+    int bit  = 1;
+    while (bit*2 < size) bit <<= 1;
+    for (; bit > 0; bit >>= 1)
+    {
+      int next = line + bit;
+      if (next < size && index[next] <= offset)
+      {
+        line    = next;
+        offset -= index[next];
+      }
+    }
+    return line;
+  }
+
+  public int getExtraChar (int i)
+  {
+    if (isCompact) return extras[i];
     char[] line = (char[])lines.elementAt(i);
     return (int) line[line.length-1];
   }
 
-  public void setExtraChar (int i, int ch) {
-    char[] line = (char[])lines.elementAt(i);
-    line[line.length-1] = (char)ch;
+  public void setExtraChar (int i, int ch)
+  {
+    if (isCompact) extras[i] = ch;
+    else
+    {
+      char[] line = (char[])lines.elementAt(i);
+      line[line.length-1] = (char)ch;
+    }
   }
 
-  private int[] getLnInfo (int start, int startOffset, int o)
+  private Object newLine(char[] buf, int off, int len)
   {
-    int offset = startOffset;
-    for (int i=start; i<lines.size(); i++)
+    if (isCompact)
     {
-      char[] buf = (char[])lines.elementAt(i);
-      if (o >= offset && o <= offset + buf.length - EXTRA_SIZE) return new int[] { i, offset };
-      offset += (buf.length + 1 - EXTRA_SIZE);
+      byte[] b = new byte[len];
+      for (int i=0; i<len; i++)
+      {
+        char ch = buf[off + i];
+        if (ch > 0xFF)
+        {
+          char[] line = new char[len];
+          System.arraycopy(buf, off, line, 0, len);
+          return line;
+        }
+        b[i] = (byte)ch;
+      }
+      return b;
     }
-    return null;
+
+    char[] line = new char[len + EXTRA_SIZE];
+    System.arraycopy(buf, off, line, 0, len);
+    return line;
+  }
+
+  private int lineLength(Object ln) {
+    if (ln instanceof byte[]) return ((byte[])ln).length;
+    return ((char[])ln).length - (isCompact?0:EXTRA_SIZE);
+  }
+
+  private char[] getChars(Object ln)
+  {
+    if (ln instanceof byte[])
+    {
+      byte[] b   = (byte[])ln;
+      char[] buf = new char[b.length];
+      for (int i=0; i<b.length; i++) buf[i] = (char)(b[i] & 0xFF);
+      return buf;
+    }
+    return (char[])ln;
+  }
+
+  private void appendLine(StringBuffer buf, Object ln) {
+    if (ln instanceof byte[]) buf.append(getChars(ln));
+    else                      buf.append((char[])ln, 0, lineLength(ln));
   }
-}
 
+  private void linesChanged(int line, int removed, int inserted)
+  {
+    if (isCompact)
+    {
+      int size = lines.size(), tail = size - line - inserted;
+      int[] buf = (extras.length < size)?new int[size + size/4 + 1]:extras;
+      if (buf != extras) System.arraycopy(extras, 0, buf, 0, line);
+      System.arraycopy(extras, line + removed, buf, line + inserted, tail);
+      for (int i=line; i<line + inserted; i++) buf[i] = 0;
+      extras = buf;
+    }
+  }
+
+  private int[] getLnInfo (int o)
+  {
+    if (o < 0 || o > textLength) return null;
+    int line = getLineByOffset(o);
+    return new int[] { line, getLineOffset(line) };
+  }
+
+  private void updateIndex(int line, int delta)
+  {
+    if (isIndexValid)
+      for (int i=line + 1; i<index.length; i += (i & -i)) index[i] += delta;
+  }
+
+  private void validateIndex()
+  {
+    if (!isIndexValid)
+    {
+      int size = lines.size();
+      if (index == null || index.length < size + 1 || index.length > 2*size + 16)
+        index = new int[size + size/4 + 1];
+
+      index[0] = 0;
+      for (int i=1; i<index.length; i++)
+        index[i] = (i <= size)?lineLength(lines.elementAt(i - 1)) + 1:0;
+      for (int i=1; i<index.length; i++)
+      {
+        int j = i + (i & -i);
+        if (j < index.length) index[j] += index[i];
+      }
+      isIndexValid = true;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import org.zaval.data.event.*;
+
+/**
+ * This is a utility class that is used with text models to implement
+ * <code>BatchTextModel</code> interface. The class keeps the text listeners of the
+ * text model and fires the text events to the listeners. The class collects text events
+ * that have been performed during the text update and merges them into one event.
+ * The touched lines and characters are kept as a range of the current text, so
+ * the range is re-mapped every time a text event is added.
+ */
+class TextBatch
+{
+  private Object              target;
+  private TextListenerSupport support;
+  private int                 counter, events, size;
+  private int                 firstLine, lastLine, firstOffset, lastOffset;
+  private TextEvent           event;
+
+ /**
+  * Constructs the object for the specified text model.
+  * @param <code>target</code> the specified text model.
+  */
+  TextBatch(Object target) {
+    this.target = target;
+  }
+
+ /**
+  * Adds the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  void addListener(TextListener l) {
+    if (support == null) support = new TextListenerSupport();
+    support.addListener(l);
+  }
+
+ /**
+  * Removes the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  void removeListener(TextListener l) {
+    if (support != null) support.removeListener(l);
+  }
+
+ /**
+  * Tests if a text event has to be created, it is so if a text listener has been added or
+  * the text update has been started.
+  * @return <code>true</code> if a text event has to be created.
+  */
+  boolean isActive() {
+    return support != null || counter > 0;
+  }
+
+ /**
+  * Starts the text update.
+  * @param <code>size</code> the specified text lines number.
+  */
+  void begin(int size)
+  {
+    if (counter++ == 0)
+    {
+      this.size = size;
+      events    = 0;
+      event     = null;
+    }
+  }
+
+ /**
+  * Tests if the text update has been started.
+  * @return <code>true</code> if the text update has been started.
+  */
+  boolean isUpdating() {
+    return counter > 0;
+  }
+
+ /**
+  * Fires the specified text event to the text listeners. If the text update has been
+  * started than the event is added to the update.
+  * @param <code>e</code> the specified text event.
+  * @param <code>newSize</code> the text lines number after the modification.
+  */
+  void perform(TextEvent e, int newSize)
+  {
+    if (counter > 0) add(e, newSize);
+    else
+    if (support != null) support.perform(e);
+  }
+
+ /**
+  * Adds the specified text event to the update.
+  * @param <code>e</code> the specified text event.
+  * @param <code>newSize</code> the text lines number after the modification.
+  */
+  private void add(TextEvent e, int newSize)
+  {
+    int first = e.getFirstUpdatedLine(), n = e.getUpdatedLines();
+    int o = n - newSize + size, offset = e.getOffset(), len = e.getSize();
+    int ins = 0, rem = 0;
+    switch (e.getID())
+    {
+      case TextEvent.INSERTED: ins = len; break;
+      case TextEvent.REMOVED : rem = len; break;
+      default                : ins = rem = len;
+    }
+
+    if (events++ == 0)
+    {
+      firstLine   = first;
+      lastLine    = first + n;
+      firstOffset = offset;
+      lastOffset  = offset + ins;
+    }
+    else
+    {
+      lastLine    = Math.max(map(lastLine, first, o, n), first + n);
+      firstLine   = Math.min(firstLine, first);
+      lastOffset  = Math.max(map(lastOffset, offset, rem, ins), offset + ins);
+      firstOffset = Math.min(firstOffset, offset);
+    }
+    event = e;
+    size  = newSize;
+  }
+
+ /**
+  * Finishes the text update and fires one text event that covers all modifications that
+  * have been performed during the update.
+  */
+  void end()
+  {
+    if (counter == 0) throw new IllegalStateException();
+    if (--counter > 0 || events == 0) return;
+
+    TextEvent e = event;
+    event = null;
+    if (events > 1)
+    {
+      e = new TextEvent(target, TextEvent.UPDATED, firstOffset, lastOffset - firstOffset);
+      e.setUpdatedLines(firstLine, lastLine - firstLine);
+    }
+    if (support != null) support.perform(e);
+  }
+
+  /**
+  * Replaces the old text of the specified text model with the specified new text. The
+  * method removes and inserts only the part of the text that is situated between the common
+  * prefix and the common suffix of the old and the new text. The modifications are performed
+  * as one text update.
+  * @param <code>t</code> the specified text model.
+  * @param <code>old</code> the old text.
+  * @param <code>text</code> the new text.
+  * @return <code>true</code> if the text has been replaced; <code>false</code> if the texts
+  * don't have common prefix and suffix, in this case the text is not modified.
+  */
+  static boolean replace(BatchTextModel t, String old, String text)
+  {
+    int ol = old.length(), nl = text.length(), max = Math.min(ol, nl), prefix = 0, suffix = 0;
+    while (prefix < max && old.charAt(prefix) == text.charAt(prefix)) prefix++;
+    while (suffix < max - prefix && old.charAt(ol - suffix - 1) == text.charAt(nl - suffix - 1)) suffix++;
+    if (prefix + suffix == 0) return false;
+
+    t.beginUpdate();
+    try {
+      if (ol - prefix - suffix > 0) t.remove(prefix, ol - prefix - suffix);
+      if (nl - prefix - suffix > 0) t.write(text.substring(prefix, nl - suffix), prefix);
+    }
+    finally {
+      t.endUpdate();
+    }
+    return true;
+  }
+
+  private static int map(int p, int first, int o, int n) {
+    return (p <= first)?p:((p >= first + o)?p + n - o:first + n);
+  }
+}
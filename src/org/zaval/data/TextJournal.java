@@ -0,0 +1,337 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+
+/**
+ * This class is an undo/redo journal for a text model. Every text modification is stored
+ * as a compact record that keeps the offset, the removed characters and the inserted
+ * characters, so undoing or redoing a modification costs as much as the modification size.
+ * The journal works as follows:
+ * <ul>
+ *   <li>
+ *     Use <code>add</code> method to register a text modification. Consecutive one character
+ *     modifications (typing, backspace and delete keystrokes) are merged into one record, so
+ *     the typed text is undone word by word.
+ *   </li>
+ *   <li>
+ *     Use <code>beginGroup</code> and <code>endGroup</code> methods to combine several
+ *     modifications into one undo step.
+ *   </li>
+ *   <li>
+ *     The journal has memory limit that is defined as a number of characters. The oldest
+ *     undo steps are dropped if the limit is exceeded.
+ *   </li>
+ *   <li>
+ *     Use <code>undo</code> and <code>redo</code> methods to restore the text. If the text model
+ *     implements <code>BatchTextModel</code> interface than all modifications of the undo step
+ *     are performed as one text update.
+ *   </li>
+ * </ul>
+ */
+public class TextJournal
+{
+  private static final int RECORD_SIZE = 8;
+
+  private Vector  records = new Vector();
+  private int     pos, used, limit, depth;
+  private boolean canMerge, isGroupStarted;
+
+ /**
+  * Constructs a new journal with the specified memory limit.
+  * @param <code>limit</code> the specified memory limit as a number of characters.
+  */
+  public TextJournal(int limit) {
+    setLimit(limit);
+  }
+
+ /**
+  * Sets the specified memory limit.
+  * @param <code>limit</code> the specified memory limit as a number of characters.
+  */
+  public void setLimit(int limit)
+  {
+    if (limit <= 0) throw new IllegalArgumentException();
+    this.limit = limit;
+    trim();
+  }
+
+ /**
+  * Gets the memory limit.
+  * @return a memory limit as a number of characters.
+  */
+  public int getLimit() {
+    return limit;
+  }
+
+ /**
+  * Registers the specified text modification.
+  * @param <code>offset</code> the offset where the text has been modified.
+  * @param <code>removed</code> the removed characters.
+  * @param <code>inserted</code> the inserted characters.
+  */
+  public void add(int offset, String removed, String inserted)
+  {
+    if (pos < records.size())
+    {
+      for (int i=records.size() - 1; i >= pos; i--)
+      {
+        used -= ((Record)records.elementAt(i)).cost();
+        records.removeElementAt(i);
+      }
+      canMerge = false;
+    }
+
+    Record last = (canMerge && pos > 0)?(Record)records.elementAt(pos - 1):null;
+    if (last != null)
+    {
+      int cost = last.cost();
+      if (merge(last, offset, removed, inserted))
+      {
+        used += last.cost() - cost;
+        trim();
+        return;
+      }
+    }
+
+    Record r = new Record(offset, removed, inserted, depth == 0 || !isGroupStarted);
+    isGroupStarted = depth > 0;
+    records.addElement(r);
+    pos++;
+    used    += r.cost();
+    canMerge = true;
+    trim();
+  }
+
+ /**
+  * Starts the group of modifications. All modifications that are registered until the
+  * <code>endGroup</code> method is called are undone and redone as one step.
+  */
+  public void beginGroup()
+  {
+    if (depth++ == 0)
+    {
+      isGroupStarted = false;
+      canMerge       = false;
+    }
+  }
+
+ /**
+  * Finishes the group of modifications.
+  */
+  public void endGroup() {
+    if (depth > 0) depth--;
+  }
+
+ /**
+  * Stops merging of the next registered modification with the previous one.
+  */
+  public void breakGroup() {
+    canMerge = false;
+  }
+
+ /**
+  * Clears the journal.
+  */
+  public void clear()
+  {
+    records.removeAllElements();
+    pos = used = 0;
+    canMerge = false;
+  }
+
+ /**
+  * Tests if there is a modification that can be undone.
+  * @return <code>true</code> if a modification can be undone.
+  */
+  public boolean canUndo() {
+    return pos > 0;
+  }
+
+ /**
+  * Tests if there is a modification that can be redone.
+  * @return <code>true</code> if a modification can be redone.
+  */
+  public boolean canRedo() {
+    return pos < records.size();
+  }
+
+ /**
+  * Undoes the last undo step for the specified text model.
+  * @param <code>t</code> the specified text model.
+  * @return an offset where the undone modification ends or <code>-1</code> if there
+  * is nothing to undo.
+  */
+  public int undo(TextModel t)
+  {
+    if (pos == 0) return -1;
+    canMerge = false;
+    Record r = null;
+    beginUpdate(t);
+    try {
+      do
+      {
+        r = (Record)records.elementAt(--pos);
+        if (r.inserted.length() > 0) t.remove(r.offset, r.inserted.length());
+        if (r.removed.length()  > 0) t.write (r.removed, r.offset);
+      }
+      while (!r.isFirst && pos > 0);
+    }
+    finally {
+      endUpdate(t);
+    }
+    return r.offset + r.removed.length();
+  }
+
+ /**
+  * Redoes the last undone step for the specified text model.
+  * @param <code>t</code> the specified text model.
+  * @return an offset where the redone modification ends or <code>-1</code> if there
+  * is nothing to redo.
+  */
+  public int redo(TextModel t)
+  {
+    if (pos == records.size()) return -1;
+    canMerge = false;
+    Record r = null;
+    beginUpdate(t);
+    try {
+      do
+      {
+        r = (Record)records.elementAt(pos++);
+        if (r.removed.length()  > 0) t.remove(r.offset, r.removed.length());
+        if (r.inserted.length() > 0) t.write (r.inserted, r.offset);
+      }
+      while (pos < records.size() && !((Record)records.elementAt(pos)).isFirst);
+    }
+    finally {
+      endUpdate(t);
+    }
+    return r.offset + r.inserted.length();
+  }
+
+  private void trim()
+  {
+    while (used > limit && records.size() > 0)
+    {
+      do
+      {
+        used -= ((Record)records.elementAt(0)).cost();
+        records.removeElementAt(0);
+        if (pos > 0) pos--;
+        else canMerge = false;
+      }
+      while (records.size() > 0 && !((Record)records.elementAt(0)).isFirst);
+    }
+    if (records.size() == 0) canMerge = false;
+  }
+
+  private static boolean merge(Record last, int offset, String removed, String inserted)
+  {
+    int rl = removed.length(), il = inserted.length(), ll = last.inserted.length();
+    if (rl == 0 && il == 1)
+    {
+      if (offset != last.offset + ll) return false;
+      char ch = inserted.charAt(0);
+      if (ll > 0)
+      {
+        char prev = last.inserted.charAt(ll - 1);
+        if (ch == '\n' || (!Character.isLetterOrDigit(prev) && Character.isLetterOrDigit(ch))) return false;
+      }
+      last.inserted += inserted;
+      return true;
+    }
+    else
+    if (il == 0 && rl == 1)
+    {
+      if (ll > 0)
+      {
+        if (offset != last.offset + ll - 1) return false;
+        last.inserted = last.inserted.substring(0, ll - 1);
+      }
+      else
+      if (offset + 1 == last.offset)
+      {
+        last.removed = removed + last.removed;
+        last.offset  = offset;
+      }
+      else
+      if (offset == last.offset) last.removed += removed;
+      else                       return false;
+      return true;
+    }
+    return false;
+  }
+
+  private static void beginUpdate(TextModel t) {
+    if (t instanceof BatchTextModel) ((BatchTextModel)t).beginUpdate();
+  }
+
+  private static void endUpdate(TextModel t) {
+    if (t instanceof BatchTextModel) ((BatchTextModel)t).endUpdate();
+  }
+
+  private static class Record
+  {
+    int     offset;
+    String  removed, inserted;
+    boolean isFirst;
+
+    Record(int offset, String removed, String inserted, boolean isFirst)
+    {
+      this.offset   = offset;
+      this.removed  = removed;
+      this.inserted = inserted;
+      this.isFirst  = isFirst;
+    }
+
+    int cost() {
+      return removed.length() + inserted.length() + RECORD_SIZE;
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import java.util.regex.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is a search service for a text model. The service looks for all occurrences of
+ * the specified pattern and keeps the found matches as an index: every text line has an array
+ * of matches start and end columns. The search works as follows:
+ * <ul>
+ *   <li>
+ *     Use <code>setPattern</code> method to define the pattern. The pattern can be a literal
+ *     string (Boyer-Moore-Horspool algorithm is used to find it) or a regular expression.
+ *     A match cannot contain line separators, every line is searched separately.
+ *   </li>
+ *   <li>
+ *     The service listens the text model events and updates the index incrementally: only the
+ *     lines that have been touched with the text modification are searched again.
+ *   </li>
+ *   <li>
+ *     The lines are read with <code>SegmentTextModel</code> interface (if the text model
+ *     implements it), so the text is not copied into strings.
+ *   </li>
+ * </ul>
+ * The LwAdvTextRender render can use the service to highlight the found matches.
+ */
+public class TextSearch
+implements TextListener
+{
+  private TextModel   text;
+  private String      pattern;
+  private Matcher     matcher;
+  private int[]       shifts;
+  private Vector      matches = new Vector();
+  private int         size, count;
+  private TextSegment segment = new TextSegment();
+
+ /**
+  * Constructs the search service for the specified text model.
+  * @param <code>t</code> the specified text model.
+  */
+  public TextSearch(TextModel t) {
+    setTextModel(t);
+  }
+
+ /**
+  * Sets the specified text model. Use <code>null</code> to stop listening the current
+  * text model.
+  * @param <code>t</code> the specified text model.
+  */
+  public void setTextModel(TextModel t)
+  {
+    if (text != t)
+    {
+      if (text != null) text.removeTextListener(this);
+      text = t;
+      if (text != null) text.addTextListener(this);
+      rebuild();
+    }
+  }
+
+ /**
+  * Gets the text model.
+  * @return a text model.
+  */
+  public TextModel getTextModel() {
+    return text;
+  }
+
+ /**
+  * Sets the specified pattern and searches the text. Use <code>null</code> or empty pattern
+  * to clear the matches.
+  * @param <code>p</code> the specified pattern.
+  * @param <code>isRegex</code> <code>true</code> if the pattern is a regular expression,
+  * <code>false</code> if the pattern is a literal string.
+  */
+  public void setPattern(String p, boolean isRegex)
+  {
+    matcher = null;
+    shifts  = null;
+    pattern = (p == null || p.length() == 0)?null:p;
+    if (pattern != null)
+    {
+      if (isRegex) matcher = Pattern.compile(pattern).matcher("");
+      else
+      {
+        int m = pattern.length();
+        shifts = new int[256];
+        Arrays.fill(shifts, m);
+        for (int i=0; i < m - 1; i++)
+        {
+          int b = pattern.charAt(i) & 0xFF;
+          shifts[b] = Math.min(shifts[b], m - 1 - i);
+        }
+      }
+    }
+    rebuild();
+  }
+
+ /**
+  * Gets the pattern.
+  * @return a pattern.
+  */
+  public String getPattern() {
+    return pattern;
+  }
+
+ /**
+  * Gets the number of the found matches.
+  * @return a number of matches.
+  */
+  public int getMatchCount() {
+    return count;
+  }
+
+ /**
+  * Gets the matches that have been found for the specified line. The matches are returned
+  * as an array of pairs (start column, end column), the number of matches is the array length
+  * divided by two.
+  * @param <code>line</code> the specified line.
+  * @return an array of matches or <code>null</code> if there are no matches.
+  */
+  public int[] getMatches(int line) {
+    return (line < 0 || line >= matches.size())?null:(int[])matches.elementAt(line);
+  }
+
+ /**
+  * Finds the nearest match starting from the specified position in the specified direction.
+  * @param <code>line</code> the specified line.
+  * @param <code>col</code> the specified column.
+  * @param <code>forward</code> the specified direction. If the direction is
+  * <code>true</code> than the method looks for a match that starts at or after the position,
+  * otherwise the method looks for a match that ends at or before the position.
+  * @return an array of three elements: the match line, the start column and the end column
+  * or <code>null</code> if the match has not been found.
+  */
+  public int[] find(int line, int col, boolean forward)
+  {
+    int size = matches.size();
+    if (count == 0 || size == 0) return null;
+    line = Math.max(0, Math.min(line, size - 1));
+    for (int i=line; forward ? i < size : i >= 0; i += forward?1:-1)
+    {
+      int[] m = (int[])matches.elementAt(i);
+      if (m != null)
+      {
+        if (forward)
+        {
+          for (int j=0; j<m.length; j+=2)
+            if (i > line || m[j] >= col) return new int[] { i, m[j], m[j + 1] };
+        }
+        else
+        {
+          for (int j=m.length - 2; j >= 0; j-=2)
+            if (i < line || m[j + 1] <= col) return new int[] { i, m[j], m[j + 1] };
+        }
+      }
+    }
+    return null;
+  }
+
+  public void textRemoved (TextEvent e) {
+    update(e);
+  }
+
+  public void textInserted (TextEvent e) {
+    update(e);
+  }
+
+  public void textUpdated (TextEvent e) {
+    update(e);
+  }
+
+ /**
+  * Searches the specified line and returns the found matches.
+  * @param <code>line</code> the specified line.
+  * @return an array of matches or <code>null</code> if there are no matches.
+  */
+  protected /*C#virtual*/ int[] search(int line)
+  {
+    if (text instanceof SegmentTextModel) ((SegmentTextModel)text).getLineChars(line, segment);
+    else                                  segment.set(text.getLine(line));
+
+    int[] res = null;
+    int   n   = 0;
+    if (matcher != null)
+    {
+      matcher.reset(segment);
+      int from = 0, len = segment.getCount();
+      while (from <= len && matcher.find(from))
+      {
+        int s = matcher.start(), e = matcher.end();
+        if (e > s) res = add(res, n++, s, e);
+        from = (e > s)?e:e + 1;
+      }
+    }
+    else
+    {
+      char[] a   = segment.getArray();
+      int    off = segment.getOffset(), len = segment.getCount(), m = pattern.length();
+      int    i   = 0;
+      while (i + m <= len)
+      {
+        int j = m - 1;
+        while (j >= 0 && a[off + i + j] == pattern.charAt(j)) j--;
+        if (j < 0)
+        {
+          res = add(res, n++, i, i + m);
+          i += m;
+        }
+        else i += shifts[a[off + i + m - 1] & 0xFF];
+      }
+    }
+
+    if (res != null && res.length != n * 2)
+    {
+      int[] tmp = new int[n * 2];
+      System.arraycopy(res, 0, tmp, 0, tmp.length);
+      res = tmp;
+    }
+    return res;
+  }
+
+  private void update(TextEvent e)
+  {
+    int newSize = text.getSize();
+    if (pattern == null)
+    {
+      size = newSize;
+      return;
+    }
+
+    int first = e.getFirstUpdatedLine(), n = e.getUpdatedLines(), o = n - newSize + size;
+    size = newSize;
+    if (first + o > matches.size() || first + n > newSize)
+    {
+      rebuild();
+      return;
+    }
+
+    int common = Math.min(o, n);
+    for (int i=0; i<o; i++)
+    {
+      int[] m = (int[])matches.elementAt(first + (i < common?i:common));
+      if (m != null) count -= m.length/2;
+      if (i >= common) matches.removeElementAt(first + common);
+    }
+
+    for (int i=0; i<n; i++)
+    {
+      int[] m = search(first + i);
+      if (m != null) count += m.length/2;
+      if (i < common) matches.setElementAt(m, first + i);
+      else            matches.insertElementAt(m, first + i);
+    }
+  }
+
+  private void rebuild()
+  {
+    matches.removeAllElements();
+    count = 0;
+    size  = (text == null)?0:text.getSize();
+    if (pattern != null && text != null)
+    {
+      matches.setSize(size);
+      for (int i=0; i<size; i++)
+      {
+        int[] m = search(i);
+        if (m != null)
+        {
+          count += m.length/2;
+          matches.setElementAt(m, i);
+        }
+      }
+    }
+  }
+
+  private static int[] add(int[] res, int n, int start, int end)
+  {
+    if (res == null) res = new int[4];
+    else
+    if (res.length < n*2 + 2)
+    {
+      int[] tmp = new int[res.length * 2];
+      System.arraycopy(res, 0, tmp, 0, res.length);
+      res = tmp;
+    }
+    res[n*2]     = start;
+    res[n*2 + 1] = end;
+    return res;
+  }
+}
@@ -0,0 +1,142 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+/**
+ * This class describes a part of a character array. It is used to get a text line without
+ * creating a string: a text model sets the segment to refer to its own character array if it
+ * is possible or copies the line characters into the segment buffer. The buffer is kept with
+ * the segment, so the same segment can be used many times without new allocations. The
+ * characters of the segment must not be modified. The segment implements
+ * <code>CharSequence</code> interface, so it can be used with regular expressions.
+ */
+public class TextSegment
+implements CharSequence
+{
+  private char[] array, buffer;
+  private int    offset, count;
+
+ /**
+  * Sets the specified part of the character array as the segment content.
+  * @param <code>a</code> the specified character array.
+  * @param <code>off</code> the specified offset of the first character.
+  * @param <code>len</code> the specified number of characters.
+  */
+  public void set(char[] a, int off, int len) {
+    array  = a;
+    offset = off;
+    count  = len;
+  }
+
+ /**
+  * Copies characters of the specified string into the segment buffer and sets the buffer
+  * as the segment content.
+  * @param <code>s</code> the specified string.
+  */
+  public void set(String s) {
+    int len = s.length();
+    s.getChars(0, len, getBuffer(len), 0);
+    set(buffer, 0, len);
+  }
+
+ /**
+  * Gets the segment buffer that has the specified capacity at least. The buffer is
+  * re-created only if its capacity is less than the specified.
+  * @param <code>capacity</code> the specified capacity.
+  * @return a segment buffer.
+  */
+  public char[] getBuffer(int capacity)
+  {
+    if (buffer == null || buffer.length < capacity)
+      buffer = new char[Math.max(capacity, buffer == null?32:buffer.length * 2)];
+    return buffer;
+  }
+
+ /**
+  * Gets the character array the segment refers to.
+  * @return a character array.
+  */
+  public char[] getArray() {
+    return array;
+  }
+
+ /**
+  * Gets the offset of the first segment character in the character array.
+  * @return an offset.
+  */
+  public int getOffset() {
+    return offset;
+  }
+
+ /**
+  * Gets the number of the segment characters.
+  * @return a number of characters.
+  */
+  public int getCount() {
+    return count;
+  }
+
+  public int length() {
+    return count;
+  }
+
+  public char charAt(int index)
+  {
+    if (index < 0 || index >= count) throw new IndexOutOfBoundsException();
+    return array[offset + index];
+  }
+
+  public CharSequence subSequence(int start, int end)
+  {
+    if (start < 0 || end > count || start > end) throw new IndexOutOfBoundsException();
+    return new String(array, offset + start, end - start);
+  }
+
+  public /*C#override*/ String toString () {
+    return new String(array, offset, count);
+  }
+}
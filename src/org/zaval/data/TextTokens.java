@@ -0,0 +1,293 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+import java.util.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class keeps the styled spans of a text model lines that have been found with
+ * the specified tokenizer. For every line the class caches the spans and the lexer state
+ * at the end of the line. The class listens the text model events and re-tokenizes the
+ * text incrementally: the modified lines are tokenized again and the tokenizing goes on
+ * to the next lines only until the lexer state becomes the same as it was before the
+ * modification.
+ * <p>
+ * If the spans of lines that follow the modified lines have been changed (for example
+ * a multi-line comment has been opened) than the class fires
+ * <code>TextEvent.UPDATED</code> text event to its own listeners. The event updated lines
+ * define the lines that have been re-tokenized, the event offset and size are
+ * <code>0</code>.
+ */
+public class TextTokens
+implements TextListener
+{
+  private TextModel     text;
+  private TextTokenizer tokenizer;
+  private Vector        spans  = new Vector();
+  private int[]         states = new int[16];
+  private int[]         buf    = new int[24];
+  private int           size, bufSize;
+  private TextSegment   segment = new TextSegment();
+  private TextListenerSupport support;
+
+ /**
+  * Constructs the tokens for the specified text model and tokenizer.
+  * @param <code>t</code> the specified text model.
+  * @param <code>tokenizer</code> the specified tokenizer.
+  */
+  public TextTokens(TextModel t, TextTokenizer tokenizer)
+  {
+    this.tokenizer = tokenizer;
+    setTextModel(t);
+  }
+
+ /**
+  * Sets the specified text model. Use <code>null</code> to stop listening the current
+  * text model.
+  * @param <code>t</code> the specified text model.
+  */
+  public void setTextModel(TextModel t)
+  {
+    if (text != t)
+    {
+      if (text != null) text.removeTextListener(this);
+      text = t;
+      if (text != null) text.addTextListener(this);
+      rebuild();
+    }
+  }
+
+ /**
+  * Gets the text model.
+  * @return a text model.
+  */
+  public TextModel getTextModel() {
+    return text;
+  }
+
+ /**
+  * Sets the specified tokenizer and tokenizes the whole text.
+  * @param <code>t</code> the specified tokenizer.
+  */
+  public void setTokenizer(TextTokenizer t)
+  {
+    if (tokenizer != t)
+    {
+      tokenizer = t;
+      rebuild();
+    }
+  }
+
+ /**
+  * Gets the tokenizer.
+  * @return a tokenizer.
+  */
+  public TextTokenizer getTokenizer() {
+    return tokenizer;
+  }
+
+ /**
+  * Gets the spans of the specified line. The spans are returned as an array of triples
+  * (start column, end column, style), the number of spans is the array length divided by
+  * three.
+  * @param <code>line</code> the specified line.
+  * @return an array of spans or <code>null</code> if the line doesn't have spans.
+  */
+  public int[] getSpans(int line) {
+    return (line < 0 || line >= spans.size())?null:(int[])spans.elementAt(line);
+  }
+
+ /**
+  * Gets the lexer state at the end of the specified line.
+  * @param <code>line</code> the specified line.
+  * @return a lexer state.
+  */
+  public int getState(int line) {
+    return states[line];
+  }
+
+ /**
+  * Adds the specified span to the line that is being tokenized. The method has to be
+  * called by a tokenizer.
+  * @param <code>start</code> the specified start column.
+  * @param <code>end</code> the specified end column.
+  * @param <code>style</code> the specified style.
+  */
+  public void addSpan(int start, int end, int style)
+  {
+    if (end > start)
+    {
+      if (bufSize + 3 > buf.length)
+      {
+        int[] tmp = new int[buf.length * 2];
+        System.arraycopy(buf, 0, tmp, 0, bufSize);
+        buf = tmp;
+      }
+      buf[bufSize++] = start;
+      buf[bufSize++] = end;
+      buf[bufSize++] = style;
+    }
+  }
+
+ /**
+  * Adds the specified text listener to be notified when the spans of lines that
+  * follow the modified lines have been changed.
+  * @param <code>l</code> the text listener.
+  */
+  public void addTextListener(TextListener l) {
+    if (support == null) support = new TextListenerSupport();
+    support.addListener(l);
+  }
+
+ /**
+  * Removes the specified text listener.
+  * @param <code>l</code> the text listener.
+  */
+  public void removeTextListener(TextListener l) {
+    if (support != null) support.removeListener(l);
+  }
+
+  public void textRemoved (TextEvent e) {
+    update(e);
+  }
+
+  public void textInserted (TextEvent e) {
+    update(e);
+  }
+
+  public void textUpdated (TextEvent e) {
+    update(e);
+  }
+
+  private void update(TextEvent e)
+  {
+    int newSize = text.getSize();
+    int first = e.getFirstUpdatedLine(), n = e.getUpdatedLines(), o = n - newSize + size;
+    if (tokenizer == null || first + o > size || first + n > newSize)
+    {
+      rebuild();
+      perform(0, size);
+      return;
+    }
+
+    int oldEnd = (o > 0)?states[first + o - 1]:(first > 0?states[first - 1]:0);
+    int common = Math.min(o, n);
+    if (o > common)
+    {
+      for (int i=common; i<o; i++) spans.removeElementAt(first + common);
+      System.arraycopy(states, first + o, states, first + n, size - first - o);
+    }
+    else
+    if (n > common)
+    {
+      if (newSize > states.length)
+      {
+        int[] tmp = new int[Math.max(newSize, states.length * 2)];
+        System.arraycopy(states, 0, tmp, 0, size);
+        states = tmp;
+      }
+      System.arraycopy(states, first + o, states, first + n, size - first - o);
+      for (int i=common; i<n; i++) spans.insertElementAt(null, first + common);
+    }
+    size = newSize;
+
+    int state = (first > 0)?states[first - 1]:0, i = first;
+    for (; i < first + n; i++) state = tokenize(i, state);
+    for (; i < size && state != oldEnd; i++)
+    {
+      oldEnd = states[i];
+      state  = tokenize(i, state);
+    }
+    if (i > first + n) perform(first + n, i - first - n);
+  }
+
+  private int tokenize(int line, int state)
+  {
+    if (text instanceof SegmentTextModel) ((SegmentTextModel)text).getLineChars(line, segment);
+    else                                  segment.set(text.getLine(line));
+
+    bufSize = 0;
+    state   = tokenizer.tokenize(segment, state, this);
+    int[] s = null;
+    if (bufSize > 0)
+    {
+      s = new int[bufSize];
+      System.arraycopy(buf, 0, s, 0, bufSize);
+    }
+    spans.setElementAt(s, line);
+    states[line] = state;
+    return state;
+  }
+
+  private void rebuild()
+  {
+    spans.removeAllElements();
+    size = (text == null)?0:text.getSize();
+    if (states.length < size) states = new int[size];
+    if (text != null)
+    {
+      spans.setSize(size);
+      int state = 0;
+      for (int i=0; i<size; i++)
+      {
+        if (tokenizer == null) states[i] = 0;
+        else                   state = tokenize(i, state);
+      }
+    }
+  }
+
+  private void perform(int first, int lines)
+  {
+    if (support != null && lines > 0)
+    {
+      TextEvent e = new TextEvent(this, TextEvent.UPDATED, 0, 0);
+      e.setUpdatedLines(first, lines);
+      support.perform(e);
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.data;
+
+/**
+ * This interface extends <code>MatrixModel</code> with typed columns. Every column of the
+ * model has a type and the cells values can be fetched and updated with primitive values
+ * without wrapping it with objects. The <code>get</code> and <code>put</code> methods of
+ * the <code>MatrixModel</code> interface still work and wrap or unwrap the primitive values.
+ */
+public interface TypedMatrixModel
+extends MatrixModel
+{
+ /**
+  * The int column type.
+  */
+  int INT = 1;
+
+ /**
+  * The long column type.
+  */
+  int LONG = 2;
+
+ /**
+  * The double column type.
+  */
+  int DOUBLE = 3;
+
+ /**
+  * The string column type.
+  */
+  int STRING = 4;
+
+ /**
+  * Gets the type of the specified column. The method returns one of the following
+  * values: INT, LONG, DOUBLE, STRING.
+  * @param <code>col</code> the specified column.
+  * @return a column type.
+  */
+  int getType(int col);
+
+ /**
+  * Gets the value of the specified cell as int value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  int getInt(int row, int col);
+
+ /**
+  * Gets the value of the specified cell as long value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  long getLong(int row, int col);
+
+ /**
+  * Gets the value of the specified cell as double value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  double getDouble(int row, int col);
+
+ /**
+  * Gets the value of the specified cell as string value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @return a value.
+  */
+  String getString(int row, int col);
+
+ /**
+  * Updates the specified cell with the specified int value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  void putInt(int row, int col, int v);
+
+ /**
+  * Updates the specified cell with the specified long value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  void putLong(int row, int col, long v);
+
+ /**
+  * Updates the specified cell with the specified double value.
+  * @param <code>row</code> the specified row.
+  * @param <code>col</code> the specified column.
+  * @param <code>v</code> the specified value.
+  */
+  void putDouble(int row, int col, double v);
+}
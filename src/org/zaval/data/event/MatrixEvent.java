@@ -65,7 +65,12 @@ extends org.zaval.util.event.EvObject
    */
    public static final int MATRIX_RESIZED = 2;
 
-   private int rowx, colx;
+  /**
+   * The matrix cells range modified event type.
+   */
+   public static final int RANGE_MODIFIED = 3;
+
+   private int rowx, colx, rowsx, colsx, atx = -1;
    private Object prevValue;
 
   /**
@@ -84,6 +89,24 @@ extends org.zaval.util.event.EvObject
      colx = prevCols;
    }
 
+  /**
+   * Constructs a new matrix event class with the given source, previous number of rows and
+   * columns and the row where the rows have been inserted or removed. The contructor sets
+   * event id to MATRIX_RESIZED value. The event says that the rows have been inserted or
+   * removed starting from the specified row (the number of the rows is the difference between
+   * the new and the previous numbers of rows) and the other rows have been shifted, so
+   * listeners can keep a row related state (for instance, selected row).
+   * @param <code>target</code> the source of the event.
+   * @param <code>prevRows</code> the previous number of rows.
+   * @param <code>prevCols</code> the previous number of columns.
+   * @param <code>row</code> the row where the rows have been inserted or removed.
+   */
+   public MatrixEvent(Object target, int prevRows, int prevCols, int row)
+   {
+     this(target, prevRows, prevCols);
+     atx = row;
+   }
+
   /**
    * Constructs a new matrix event class with the given source, row, column and previous value.
    * The contructor sets event id to CELL_MODIFIED value. The type of event (created by the
@@ -101,6 +124,26 @@ extends org.zaval.util.event.EvObject
      this.prevValue = prevValue;
    }
 
+  /**
+   * Constructs a new matrix event class with the given source and the modified cells range.
+   * The contructor sets event id to RANGE_MODIFIED value. The type of event (created by the
+   * contructor) is used to notify that the values of the matrix cells that belong to the range
+   * have been changed. The event is passed to <code>cellModified</code> listener method.
+   * @param <code>target</code> the source of the event.
+   * @param <code>row</code> the first row of the modified range.
+   * @param <code>col</code> the first column of the modified range.
+   * @param <code>rows</code> the number of rows of the modified range.
+   * @param <code>cols</code> the number of columns of the modified range.
+   */
+   public MatrixEvent(Object target, int row, int col, int rows, int cols)
+   {
+     super(target, RANGE_MODIFIED);
+     rowx  = row;
+     colx  = col;
+     rowsx = rows;
+     colsx = cols;
+   }
+
   /**
    * Returns the previous dimension of the matrix model. Use the method if the event id is
    * MATRIX_RESIZED. The returned value is presented with java.awt.Dimension class where
@@ -112,6 +155,16 @@ extends org.zaval.util.event.EvObject
      return new Dimension (rowx, colx);
    }
 
+  /**
+   * Returns the row where the rows have been inserted or removed. Use the method if the
+   * event id is MATRIX_RESIZED.
+   * @return a row where the rows have been inserted or removed or <code>-1</code> if the
+   * rows have been changed arbitrarily or only the number of columns has been changed.
+   */
+   public int getResizedRow() {
+     return atx;
+   }
+
   /**
    * Returns the row and column of the modified cell. Use the method if the event id is
    * CELL_MODIFIED. The returned value is presented with java.awt.Point class where
@@ -123,6 +176,20 @@ extends org.zaval.util.event.EvObject
      return new Point(rowx, colx);
    }
 
+  /**
+   * Returns the modified cells range. Use the method if the event id is RANGE_MODIFIED.
+   * The returned value is presented with java.awt.Rectangle class where <code>x</code>
+   * field correspond to the first row, <code>y</code> field correspond to the first column,
+   * <code>width</code> field correspond to the number of rows and <code>height</code>
+   * field correspond to the number of columns. For CELL_MODIFIED event the method returns
+   * the range that contains only the modified cell.
+   * @return a modified cells range.
+   */
+   public Rectangle getModifiedRange() {
+     return (getID() == RANGE_MODIFIED)?new Rectangle(rowx, colx, rowsx, colsx)
+                                       :new Rectangle(rowx, colx, 1, 1);
+   }
+
   /**
    * Returns the previous value of the modified cell. Use the method if the event id is
    * CELL_MODIFIED.
@@ -133,7 +200,7 @@ extends org.zaval.util.event.EvObject
    }
 
    protected /*C#override*/ boolean checkID(int id) {
-     return id == CELL_MODIFIED || id == MATRIX_RESIZED;
+     return id == CELL_MODIFIED || id == MATRIX_RESIZED || id == RANGE_MODIFIED;
    }
 }
 
@@ -60,7 +60,8 @@ extends java.util.EventListener
   void matrixResized(MatrixEvent e);
 
  /**
-  * Invoked when a cell of the matrix model has been updated.
+  * Invoked when a cell or a range of cells of the matrix model has been updated. Use
+  * the event id to distinguish CELL_MODIFIED and RANGE_MODIFIED events.
   * @param <code>e</code> the matrix event.
   */
   void cellModified (MatrixEvent e);
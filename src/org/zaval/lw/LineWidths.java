@@ -0,0 +1,245 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.lw;
+
+/**
+ * This class is used with LwTextRender to store the text lines widths. The widths are
+ * kept in an integer gap buffer (so inserting and removing lines near the previous
+ * modification is cheap) and the maximal width is tracked with a max-heap that supports
+ * lazy removing: a removed width is put into the second heap and is dropped when it
+ * reaches the top of the first heap. It allows to get the maximal line width for O(1)
+ * and to update a line width for O(log n). A line width that has not been measured yet
+ * is <code>-1</code>.
+ */
+class LineWidths
+{
+  private int[] widths = new int[16];
+  private int   gapStart, gapEnd = widths.length;
+  private int[] heap = new int[16], removed = new int[16];
+  private int   heapSize, removedSize, measured;
+
+ /**
+  * Removes all widths and sets the specified number of not measured lines.
+  * @param <code>size</code> the specified number of lines.
+  */
+  void clear(int size)
+  {
+    widths   = new int[size + 16];
+    gapStart = 0;
+    gapEnd   = widths.length;
+    heapSize = removedSize = measured = 0;
+    insert(0, size);
+  }
+
+ /**
+  * Gets the number of lines.
+  * @return a number of lines.
+  */
+  int size() {
+    return widths.length - gapEnd + gapStart;
+  }
+
+ /**
+  * Gets the width of the specified line.
+  * @param <code>line</code> the specified line.
+  * @return a line width or <code>-1</code> if the line has not been measured.
+  */
+  int get(int line) {
+    return widths[line < gapStart?line:line + gapEnd - gapStart];
+  }
+
+ /**
+  * Sets the width of the specified line.
+  * @param <code>line</code> the specified line.
+  * @param <code>w</code> the specified width.
+  */
+  void set(int line, int w)
+  {
+    int i = line < gapStart?line:line + gapEnd - gapStart;
+    if (widths[i] != w)
+    {
+      drop(widths[i]);
+      widths[i] = w;
+      if (w >= 0)
+      {
+        heap = push(heap, heapSize++, w);
+        measured++;
+      }
+      compact();
+    }
+  }
+
+ /**
+  * Gets the maximal width of the measured lines.
+  * @return a maximal width.
+  */
+  int getMax()
+  {
+    while (removedSize > 0 && heap[0] == removed[0])
+    {
+      pop(heap, heapSize--);
+      pop(removed, removedSize--);
+    }
+    return heapSize > 0?heap[0]:0;
+  }
+
+ /**
+  * Inserts the specified number of not measured lines starting from the specified line.
+  * @param <code>line</code> the specified line.
+  * @param <code>count</code> the specified number of lines.
+  */
+  void insert(int line, int count)
+  {
+    if (count > 0)
+    {
+      moveGap(line);
+      if (gapEnd - gapStart < count)
+      {
+        int   tail = widths.length - gapEnd;
+        int[] buf  = new int[Math.max(widths.length * 2, gapStart + count + tail + 16)];
+        System.arraycopy(widths, 0, buf, 0, gapStart);
+        System.arraycopy(widths, gapEnd, buf, buf.length - tail, tail);
+        gapEnd = buf.length - tail;
+        widths = buf;
+      }
+      for (int i=0; i<count; i++) widths[gapStart + i] = -1;
+      gapStart += count;
+    }
+  }
+
+ /**
+  * Removes the specified number of lines starting from the specified line.
+  * @param <code>line</code> the specified line.
+  * @param <code>count</code> the specified number of lines.
+  */
+  void remove(int line, int count)
+  {
+    if (count > 0)
+    {
+      moveGap(line);
+      for (int i=0; i<count; i++) drop(widths[gapEnd + i]);
+      gapEnd += count;
+      compact();
+    }
+  }
+
+  private void drop(int w)
+  {
+    if (w >= 0)
+    {
+      measured--;
+      removed = push(removed, removedSize++, w);
+    }
+  }
+
+  private void compact()
+  {
+    if (heapSize <= 32 || heapSize <= measured * 2) return;
+    heapSize = removedSize = 0;
+    int size = size();
+    for (int i=0; i<size; i++)
+    {
+      int w = get(i);
+      if (w >= 0) heap = push(heap, heapSize++, w);
+    }
+  }
+
+  private void moveGap(int index)
+  {
+    if (index < gapStart)
+    {
+      int size = gapStart - index;
+      System.arraycopy(widths, index, widths, gapEnd - size, size);
+      gapStart -= size;
+      gapEnd   -= size;
+    }
+    else
+    if (index > gapStart)
+    {
+      int size = index - gapStart;
+      System.arraycopy(widths, gapEnd, widths, gapStart, size);
+      gapStart += size;
+      gapEnd   += size;
+    }
+  }
+
+  private static int[] push(int[] h, int size, int v)
+  {
+    if (size == h.length)
+    {
+      int[] buf = new int[size * 2];
+      System.arraycopy(h, 0, buf, 0, size);
+      h = buf;
+    }
+
+    int i = size;
+    while (i > 0)
+    {
+      int p = (i - 1)/2;
+      if (h[p] >= v) break;
+      h[i] = h[p];
+      i = p;
+    }
+    h[i] = v;
+    return h;
+  }
+
+  private static void pop(int[] h, int size)
+  {
+    int v = h[--size], i = 0;
+    while (true)
+    {
+      int c = 2*i + 1;
+      if (c >= size) break;
+      if (c + 1 < size && h[c + 1] > h[c]) c++;
+      if (h[c] <= v) break;
+      h[i] = h[c];
+      i = c;
+    }
+    h[i] = v;
+  }
+}
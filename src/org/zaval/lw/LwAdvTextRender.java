@@ -48,15 +48,30 @@ package org.zaval.lw;
 
 import java.awt.*;
 import org.zaval.data.*;
+import org.zaval.data.event.TextEvent;
+import org.zaval.data.event.TextListener;
+import org.zaval.util.*;
 
 /**
  * The class extends LwTextRender to support text block painting. The render checks if the
  * owner drawable object implements TxtSelectionInfo interface and use the interface to
  * render text block, otherwise the render functionality is the same to LwTextRender.
+ * Additionally the render can highlight matches that have been found with
+ * org.zaval.data.TextSearch service, use <code>setSearch</code> method to define the service,
+ * and can paint styled spans (syntax coloring) that are kept with org.zaval.data.TextTokens
+ * class, use <code>setTokens</code> method to define the tokens and <code>setStyleColor</code>
+ * method to define the spans styles colors.
  */
 public class LwAdvTextRender
 extends LwTextRender
 {
+  private TextSegment segment = new TextSegment();
+  private TextSearch  search;
+  private Color       highlightColor = Color.yellow;
+  private TextTokens  tokens;
+  private Color[]     styles = { null, Color.blue, new Color(0, 128, 0), new Color(160, 0, 0), Color.magenta };
+  private TextListener repainter;
+
  /**
   * Constructs the render with the specified target text model.
   * @param <code>text</code> the specified target text model.
@@ -65,11 +80,172 @@ extends LwTextRender
     super(text);
   }
 
-  protected /*C#override*/ void paintLine(Graphics g, int x, int y, int line, Drawable d) {
-    super.paintLine(g, x, y, line, d);
+  protected /*C#override*/ void paintLine(Graphics g, int x, int y, int line, Drawable d)
+  {
+    int[] spans = (tokens == null || tokens.getTextModel() != getTextModel() || !d.isEnabled())?null
+                                                                                                 :tokens.getSpans(line);
+    if (spans == null) super.paintLine(g, x, y, line, d);
+    else               paintSpans(g, x, y, line, spans);
+    paintMatches(g, x, y, line, d);
     paintSelection(g, x, y, line, d);
   }
 
+ /**
+  * Sets the specified tokens whose styled spans should be painted. The tokens have to
+  * work with the render text model.
+  * @param <code>t</code> the specified tokens. Use <code>null</code> to paint the text
+  * without styles.
+  */
+  public void setTokens(TextTokens t)
+  {
+    if (t != tokens)
+    {
+      if (tokens != null) tokens.removeTextListener(repainter);
+      tokens = t;
+      if (tokens != null)
+      {
+        if (repainter == null)
+          repainter = new TextListener()
+          {
+            public void textRemoved (TextEvent e) {}
+            public void textInserted(TextEvent e) {}
+            public void textUpdated (TextEvent e) {
+              if (getOwner() instanceof Drawable) ((Drawable)getOwner()).repaint();
+            }
+          };
+        tokens.addTextListener(repainter);
+      }
+    }
+  }
+
+ /**
+  * Gets the tokens whose styled spans are painted.
+  * @return a tokens.
+  */
+  public TextTokens getTokens() {
+    return tokens;
+  }
+
+ /**
+  * Sets the specified color for the specified span style.
+  * @param <code>style</code> the specified span style.
+  * @param <code>c</code> the specified color. Use <code>null</code> to paint the spans
+  * with the foreground color.
+  */
+  public void setStyleColor(int style, Color c)
+  {
+    if (style >= styles.length)
+    {
+      Color[] tmp = new Color[style + 1];
+      System.arraycopy(styles, 0, tmp, 0, styles.length);
+      styles = tmp;
+    }
+    styles[style] = c;
+  }
+
+ /**
+  * Gets the color for the specified span style.
+  * @param <code>style</code> the specified span style.
+  * @return a color.
+  */
+  public Color getStyleColor(int style) {
+    return (style < 0 || style >= styles.length)?null:styles[style];
+  }
+
+ /**
+  * Invoked by <code>paintLine</code> method to render the line that has styled spans.
+  * The spans are painted with the style colors, the rest of the line is painted with
+  * the current color.
+  * @param <code>g</code> the graphics context.
+  * @param <code>x</code> the x coordinate of the text line location.
+  * @param <code>y</code> the y coordinate of the text line location.
+  * @param <code>line</code> the specified line index.
+  * @param <code>spans</code> the specified line spans.
+  */
+  protected /*C#virtual*/ void paintSpans(Graphics g, int x, int y, int line, int[] spans)
+  {
+    getLineChars(line, segment);
+    char[] s    = segment.getArray();
+    int    off  = segment.getOffset(), len = segment.getCount(), pos = 0;
+    Color  fore = g.getColor();
+    y += getAscent();
+    for (int i=0; i<spans.length && pos < len; i+=3)
+    {
+      int start = Math.min(spans[i], len), end = Math.min(spans[i + 1], len);
+      if (start > pos)
+      {
+        g.drawChars(s, off + pos, start - pos, x, y);
+        x += charsWidth(s, off + pos, start - pos);
+      }
+      Color c = getStyleColor(spans[i + 2]);
+      g.setColor(c == null?fore:c);
+      g.drawChars(s, off + start, end - start, x, y);
+      g.setColor(fore);
+      x  += charsWidth(s, off + start, end - start);
+      pos = end;
+    }
+    if (pos < len) g.drawChars(s, off + pos, len - pos, x, y);
+  }
+
+ /**
+  * Sets the specified search service whose matches should be highlighted. The search
+  * service has to work with the render text model.
+  * @param <code>s</code> the specified search service. Use <code>null</code> to stop
+  * highlighting.
+  */
+  public void setSearch(TextSearch s) {
+    search = s;
+  }
+
+ /**
+  * Gets the search service whose matches are highlighted.
+  * @return a search service.
+  */
+  public TextSearch getSearch() {
+    return search;
+  }
+
+ /**
+  * Sets the specified color that is used to highlight the found matches.
+  * @param <code>c</code> the specified color.
+  */
+  public void setHighlightColor(Color c) {
+    if (c == null) throw new IllegalArgumentException();
+    highlightColor = c;
+  }
+
+ /**
+  * Gets the color that is used to highlight the found matches.
+  * @return a highlight color.
+  */
+  public Color getHighlightColor() {
+    return highlightColor;
+  }
+
+ /**
+  * Invoked by <code>paintLine</code> method to highlight the found matches of the line.
+  * @param <code>g</code> the graphics context.
+  * @param <code>x</code> the x coordinate of the text line location.
+  * @param <code>y</code> the y coordinate of the text line location.
+  * @param <code>line</code> the specified line index.
+  * @param <code>d</code> the specified owner component that uses the render.
+  */
+  protected /*C#virtual*/ void paintMatches(Graphics g, int x, int y, int line, Drawable d)
+  {
+    int[] m = (search == null || search.getTextModel() != getTextModel())?null:search.getMatches(line);
+    if (m != null)
+    {
+      getLineChars(line, segment);
+      char[] s   = segment.getArray();
+      int    off = segment.getOffset(), len = segment.getCount();
+      int    indent = getLineIndent(), h = getLineHeight() + indent;
+      for (int i=0; i<m.length && m[i + 1] <= len; i+=2)
+        LwToolkit.drawMarker(g, x + charsWidth(s, off, m[i]), y - indent,
+                             charsWidth(s, off + m[i], m[i + 1] - m[i]), h,
+                             d.getBackground(), highlightColor);
+    }
+  }
+
  /**
   * Invoked by <code>paintLine</code> method to render selection block.
   * @param <code>g</code> the graphics context.
@@ -88,19 +264,21 @@ extends LwTextRender
 
       if (!p1.equals(p2) && line >= p1.x && line <= p2.x)
       {
-        String s = getLine(line);
-        int w = lineWidth(line);
+        getLineChars(line, segment);
+        char[] s   = segment.getArray();
+        int    off = segment.getOffset();
+        int    w   = lineWidth(line);
 
         if (line == p1.x)
         {
-          int ww = substrWidth(s, 0, p1.y);
+          int ww = charsWidth(s, off, p1.y);
           x += ww;
           w -= ww;
-          if (p1.x == p2.x) w -= substrWidth(s, p2.y, s.length() - p2.y);
+          if (p1.x == p2.x) w -= charsWidth(s, off + p2.y, segment.getCount() - p2.y);
         }
         else
         if (line == p2.x)
-          w = substrWidth(s, 0, p2.y);
+          w = charsWidth(s, off, p2.y);
 
         int indent = getLineIndent();
         LwToolkit.drawMarker(g, x, y - indent, w, getLineHeight() + indent, d.getBackground(), selection.getSelectColor());
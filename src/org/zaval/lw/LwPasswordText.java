@@ -93,6 +93,22 @@ extends LwTextRender
     for (int i=0; i < buf.length; i++) buf[i] = echo;
     return new String(buf);
   }
+
+ /**
+  * Sets the specified segment to the characters of the specified line. The method is
+  * overrided with the class and it fills the segment buffer with the echo character, so
+  * the segment doesn't refer to the real line characters.
+  * @param <code>r</code> the specified line number.
+  * @param <code>s</code> the specified segment.
+  */
+  protected /*C#override*/ void getLineChars(int r, TextSegment s)
+  {
+    super.getLineChars(r, s);
+    int    len = s.getCount();
+    char[] buf = s.getBuffer(len);
+    for (int i=0; i < len; i++) buf[i] = echo;
+    s.set(buf, 0, len);
+  }
 }
 
 
@@ -52,6 +52,8 @@ import org.zaval.lw.event.*;
 import org.zaval.misc.*;
 import org.zaval.misc.event.*;
 import org.zaval.data.*;
+import org.zaval.data.event.TextEvent;
+import org.zaval.data.event.TextListener;
 
 /**
  * This class is a text field component. The library provides several text renders implementations
@@ -106,6 +108,23 @@ import org.zaval.data.*;
  *   <li>
  *     Use <code>getSelectedText</code> method to get selected text.
  *   </li>
+ *   <li>
+ *     Use <code>setFollowTail</code> method to keep the end of the text visible when a text
+ *     is appended to the text model (for example to show a log with org.zaval.data.LogText
+ *     model).
+ *   </li>
+ *   <li>
+ *     Use <code>find</code> method to select the next match found with org.zaval.data.TextSearch
+ *     service. The default LwAdvTextRender render highlights the matches if the service has
+ *     been set for it.
+ *   </li>
+ *   <li>
+ *     The component keeps undo/redo journal of the text modifications that have been performed
+ *     with the component. Use Ctrl+Z and Ctrl+Y keys or <code>undo</code> and <code>redo</code>
+ *     methods to undo and redo the modifications. The journal is cleared if the text model
+ *     has been modified outside of the component. Use <code>setUndoLimit</code> method to
+ *     define the journal memory limit or to disable the journal.
+ *   </li>
  * </ul>
  * <p>
  * The component overrides the <code>getOrigin</code> method to organize scrolling of the
@@ -134,16 +153,19 @@ import org.zaval.data.*;
 public class LwTextField
 extends LwLabel
 implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
-           LwFocusListener, Cursorable, PosInfo, PosListener, ScrollObj,
-           TxtSelectionInfo
+           LwFocusListener, Cursorable, IndexedPosInfo, PosListener, ScrollObj,
+           TxtSelectionInfo, TextListener
 {
   private Color         selectColor = LwToolkit.darkBlue;
   private LwView        curView;
   private PosController cur;
   private ScrollMan     man;
-  private int           cx = -1, cy = -1, dx = 0, dy = 0;
+  private int           cx = -1, cy = -1, dx = 0, dy = 0, soWidth = -1, soHeight = -1;
   private int           startLine = -1, startCol, startOff, endLine, endCol, endOff;
-  private boolean       isEditableVal = true;
+  private boolean       isEditableVal = true, isFollowTailVal, isEditing;
+  private TextJournal   journal = new TextJournal(65536);
+  private TextSegment   segment = new TextSegment();
+  private TextModel     model;
 
  /**
   * Constructs a text filed component with no text.
@@ -179,6 +201,8 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
   public LwTextField(TextModel model)
   {
     super (model);
+    this.model = model;
+    model.addTextListener(this);
     setPosController(new PosController(this));
     setCursorView(LwToolkit.getView("txt.cur"));
     getViewMan(true).setBorder(LwToolkit.getView("br.sunken"));
@@ -275,6 +299,138 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
     return isEditableVal;
   }
 
+  /**
+  * Sets the specified follow tail mode. If the mode is enabled than the component
+  * keeps the last line of the text visible whenever a text is appended to the end of
+  * the text model.
+  * @param <code>b</code> the specified mode.
+  */
+  public void setFollowTail (boolean b)
+  {
+    if (b != isFollowTailVal)
+    {
+      isFollowTailVal = b;
+      if (b) showTail(0);
+    }
+  }
+
+ /**
+  * Checks if the follow tail mode is enabled.
+  * @return <code>true</code> if the follow tail mode is enabled; <code>false</code>
+  * otherwise.
+  */
+  public boolean isFollowTail() {
+    return isFollowTailVal;
+  }
+
+  public void textInserted (TextEvent e)
+  {
+    TextModel t = getTextModel();
+    if (!isEditing) textChanged();
+    if (isFollowTailVal && e.getOffset() + e.getSize() == t.getTextLength())
+      showTail(e.getFirstUpdatedLine());
+  }
+
+  public void textRemoved (TextEvent e) {
+    if (!isEditing) textChanged();
+  }
+
+  public void textUpdated (TextEvent e) {
+    textInserted(e);
+  }
+
+ /**
+  * Selects the nearest match of the specified search service starting from the cursor
+  * position (or the selection) in the specified direction. The cursor is moved to the end
+  * of the found match.
+  * @param <code>s</code> the specified search service.
+  * @param <code>forward</code> the specified direction.
+  * @return <code>true</code> if the match has been found; <code>false</code> otherwise.
+  */
+  public boolean find(TextSearch s, boolean forward)
+  {
+    Point p = hasSelection()?(forward?getEndSelection():getStartSelection())
+                            :new Point(cur.getCurrentLine(), cur.getCurrentCol());
+    int[] m = s.find(p.x, p.y, forward);
+    if (m != null)
+    {
+      int start = PosController.getOffsetByPoint(m[0], m[1], cur);
+      int end   = start + m[2] - m[1];
+      stopSelection();
+      startOff = -1;
+      select(start, end);
+      cur.setOffset(end);
+      return true;
+    }
+    return false;
+  }
+
+ /**
+  * Sets the specified undo journal memory limit. The limit is defined as a number of
+  * characters that can be kept with the journal. Use <code>0</code> value to disable
+  * the journal.
+  * @param <code>limit</code> the specified memory limit.
+  */
+  public void setUndoLimit (int limit)
+  {
+    if (limit <= 0) journal = null;
+    else
+    if (journal == null) journal = new TextJournal(limit);
+    else                 journal.setLimit(limit);
+  }
+
+ /**
+  * Gets the undo journal memory limit.
+  * @return a memory limit. The <code>0</code> value means that the journal is disabled.
+  */
+  public int getUndoLimit () {
+    return journal == null?0:journal.getLimit();
+  }
+
+ /**
+  * Undoes the last text modification that has been performed with the component.
+  * @return <code>true</code> if the modification has been undone; <code>false</code>
+  * otherwise.
+  */
+  public boolean undo()
+  {
+    if (isEditableVal && journal != null && journal.canUndo())
+    {
+      isEditing = true;
+      try {
+        cur.setOffset(journal.undo(getTextModel()));
+      }
+      finally {
+        isEditing = false;
+      }
+      textModified();
+      return true;
+    }
+    return false;
+  }
+
+ /**
+  * Redoes the last text modification that has been undone with the component.
+  * @return <code>true</code> if the modification has been redone; <code>false</code>
+  * otherwise.
+  */
+  public boolean redo()
+  {
+    if (isEditableVal && journal != null && journal.canRedo())
+    {
+      isEditing = true;
+      try {
+        cur.setOffset(journal.redo(getTextModel()));
+      }
+      finally {
+        isEditing = false;
+      }
+      textModified();
+      return true;
+    }
+    return false;
+  }
+
   public void keyPressed(LwKeyEvent e) {
     if (!isFiltered(e)) handleKey(e);
   }
@@ -296,10 +452,13 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
       if (hasSelection())
       {
         Point p = getSelectionOffsets();
+        if (journal != null) journal.beginGroup();
         remove(p.x, p.y - p.x);
         stopSelection();
+        write(cur.getOffset(), String.valueOf(ch));
+        if (journal != null) journal.endGroup();
       }
-      write(cur.getOffset(), String.valueOf(ch));
+      else write(cur.getOffset(), String.valueOf(ch));
     }
   }
 
@@ -346,8 +505,15 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
     return Cursor.TEXT_CURSOR;
   }
 
-  public int getLineSize(int i) {
-    return getTextModel().getLine(i).length() + 1;
+  public int getLineSize(int i)
+  {
+    TextModel t = getTextModel();
+    if (t instanceof SegmentTextModel)
+    {
+      ((SegmentTextModel)t).getLineChars(i, segment);
+      return segment.getCount() + 1;
+    }
+    return t.getLine(i).length() + 1;
   }
 
   public int getLines() {
@@ -358,6 +524,16 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
     return getTextModel().getTextLength();
   }
 
+  public int getLineOffset(int line) {
+    TextModel t = getTextModel();
+    return (t instanceof IndexedTextModel)?((IndexedTextModel)t).getLineOffset(line):-1;
+  }
+
+  public int getLineByOffset(int offset) {
+    TextModel t = getTextModel();
+    return (t instanceof IndexedTextModel)?((IndexedTextModel)t).getLineByOffset(offset):-1;
+  }
+
   public /*C#override*/ void setText(String s)
   {
     cur.setOffset(0);
@@ -441,7 +617,8 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
   }
 
   public void setScrollMan (ScrollMan m) {
-    man = m;
+    man     = m;
+    soWidth = soHeight = -1;
   }
 
  /**
@@ -615,6 +792,8 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
       } break;
       case KeyEvent.VK_PAGE_DOWN : cur.seekLineTo(PosController.DOWN, pageSize()); break;
       case KeyEvent.VK_PAGE_UP   : cur.seekLineTo(PosController.UP, pageSize()); break;
+      case KeyEvent.VK_Z         : if (isControlDown) undo(); else return false; break;
+      case KeyEvent.VK_Y         : if (isControlDown) redo(); else return false; break;
       case KeyEvent.VK_DELETE    :
       {
         if (hasSelection())
@@ -647,12 +826,18 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
           String s = cm == null?null:(String)cm.get();
           if (s != null)
           {
+            if (journal != null) journal.beginGroup();
             if (hasSelection())
             {
               Point p = getSelectionOffsets();
               remove(p.x, p.y - p.x);
             }
             write(cur.getOffset(), s);
+            if (journal != null)
+            {
+              journal.endGroup();
+              journal.breakGroup();
+            }
           }
         }
       } break;
@@ -696,12 +881,24 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
       if (pos >= 0 && (pos + size) <= max)
       {
         int old = cur.getOffset();
+        TextModel t = getTextModel();
+        int    len = t.getTextLength();
+        String s   = (journal == null)?null:getSubString(t, PosController.getPointByOffset(pos, cur),
+                                                            PosController.getPointByOffset(pos + size, cur));
         cur.setOffset(pos);
-        getTextModel().remove(pos, size);
-        if (man != null) {
-          Dimension d = getSOSize();
-          man.scrollObjResized(d.width, d.height);
+        isEditing = true;
+        try {
+          t.remove(pos, size);
         }
+        finally {
+          isEditing = false;
+        }
+        if (journal != null)
+        {
+          if (len - t.getTextLength() == size) journal.add(pos, s, "");
+          else                                 journal.clear();
+        }
+        soSizeChanged();
         if (getLines() != pl || old == pos) repaint();
       }
     }
@@ -718,16 +915,122 @@ implements LwKeyListener, LwMouseListener, LwMouseMotionListener,
     {
       int old = cur.getOffset();
       int pl  = getLines();
-      getTextModel().write(s, pos);
-      if (man != null)  {
-        Dimension d = getSOSize();
-        man.scrollObjResized(d.width, d.height);
+      TextModel t = getTextModel();
+      int len = t.getTextLength();
+      isEditing = true;
+      try {
+        t.write(s, pos);
+      }
+      finally {
+        isEditing = false;
       }
+      if (journal != null)
+      {
+        if (t.getTextLength() - len == s.length()) journal.add(pos, "", s);
+        else                                       journal.clear();
+      }
+      soSizeChanged();
       cur.seek (s.length());
       if (getLines() != pl || cur.getOffset() == old) repaint();
     }
   }
 
+ /**
+  * Invalidates the component. If the component is modifying the text and the component
+  * has a scroll manager than the parent is not invalidated: the scroll manager is notified
+  * with <code>soSizeChanged</code> method if the text extent has been changed, so typing
+  * doesn't cause re-layouting of the parents.
+  */
+  public /*C#override*/ void invalidate()
+  {
+    if (model != null) vModel();
+    if (isEditing && man != null) isValidFlag = false;
+    else                          super.invalidate();
+  }
+
+ /**
+  * Notifies the scroll manager that the scroll object size has been changed. The scroll
+  * manager is notified only if the size differs from the size the manager has been
+  * notified with last time, so typing that doesn't change the text extent doesn't
+  * cause the scroll manager re-layouting.
+  */
+  protected void soSizeChanged()
+  {
+    if (man != null)
+    {
+      Dimension d = getSOSize();
+      if (d.width != soWidth || d.height != soHeight)
+      {
+        soWidth  = d.width;
+        soHeight = d.height;
+        man.scrollObjResized(d.width, d.height);
+      }
+    }
+  }
+
+  /**
+  * Moves the text listener to the text model of the current text render. The view or the
+  * text model of the render can be replaced (for example with a password text render), the
+  * replacement invalidates the component, so the method is called from
+  * <code>invalidate</code> method. The undo journal is cleared since its records belong to
+  * the previous model.
+  */
+  private void vModel()
+  {
+    LwView    v = getViewMan(false).getView();
+    TextModel t = (v instanceof LwTextRender)?((LwTextRender)v).getTextModel():null;
+    if (t != model && t != null)
+    {
+      model.removeTextListener(this);
+      model = t;
+      model.addTextListener(this);
+      textChanged();
+    }
+  }
+
+  private void textChanged()
+  {
+    if (journal != null) journal.clear();
+    soWidth = soHeight = -1;
+  }
+
+ /**
+  * Invoked when a text modification has been undone or redone. The method updates
+  * the scroll manager and repaints the component.
+  */
+  protected /*C#virtual*/ void textModified()
+  {
+    stopSelection();
+    soSizeChanged();
+    repaint();
+  }
+
+ /**
+  * Scrolls the content to make the last line of the text visible and repaints the
+  * lines starting from the specified line.
+  * @param <code>first</code> the specified first line to be repainted.
+  */
+  protected /*C#virtual*/ void showTail(int first)
+  {
+    soSizeChanged();
+
+    LwTextRender r = getTextRender();
+    Insets i  = getInsets();
+    int    lh = r.getLineHeight(), li = r.getLineIndent();
+    int    ln = getTextModel().getSize() - 1;
+    Point  o  = LwToolkit.calcOrigin(i.left - dx, ln * (lh + li) + i.top, 0, lh, this);
+    if (o.x != dx || o.y != dy)
+    {
+      if (man != null) man.scrollObjMoved(o.x, o.y);
+      else             setSOLocation(o.x, o.y);
+    }
+    else
+    {
+      int y = first * (lh + li) + i.top + dy;
+      repaint (i.left, y, width, (ln - first + 1) * (lh + li));
+    }
+  }
+
  /**
   * Gets the page size.
   * @return a page size.
@@ -78,7 +78,9 @@ implements TextListener
   private FontMetrics fontMetrics;
   private int         textWidth, textHeight;
   private Color       fore;
-  private int         startLine, lines;
+  private int         startLine, lines, textSize;
+  private TextSegment segment = new TextSegment();
+  private LineWidths  widths;
   private Validationable owner;
 
  /**
@@ -176,7 +178,10 @@ implements TextListener
     if (n != null)
     {
       ((TextModel)n).addTextListener(this);
-      invalidate(0, getTextModel().getSize());
+      textSize = ((TextModel)n).getSize();
+      if (widths == null) widths = new LineWidths();
+      widths.clear(textSize);
+      invalidate(0, textSize);
     }
   }
 
@@ -224,22 +229,32 @@ implements TextListener
     TextModel text = getTextModel();
     if (text != null)
     {
-      if (lines > 0)
+      int size = text.getSize();
+      if (widths.size() != size)
       {
-        for (int i=startLine; i<startLine + lines; i++)
-          text.setExtraChar(i, stringWidth(text.getLine(i)));
-        lines = 0;
+        widths.clear(size);
+        startLine = 0;
+        lines     = size;
       }
 
-      int lineHeight = getLineHeight();
-      int max = 0, size = text.getSize();
-      for (int i=0; i<size; i++)
+      if (lines > 0)
       {
-        int len = text.getExtraChar(i);
-        if (len > max) max = len;
+        boolean b = text instanceof SegmentTextModel;
+        int     e = Math.min(startLine + lines, size);
+        for (int i=startLine; i<e; i++)
+        {
+          if (b)
+          {
+            ((SegmentTextModel)text).getLineChars(i, segment);
+            widths.set(i, charsWidth(segment.getArray(), segment.getOffset(), segment.getCount()));
+          }
+          else widths.set(i, stringWidth(text.getLine(i)));
+        }
+        lines = 0;
       }
-      textWidth  = max;
-      textHeight = lineHeight * size + (size - 1) * getLineIndent();
+
+      textWidth  = widths.getMax();
+      textHeight = getLineHeight() * size + (size - 1) * getLineIndent();
     }
   }
 
@@ -248,8 +263,7 @@ implements TextListener
   * @param <code>e</code> the text event.
   */
   public void textRemoved(TextEvent e) {
-    if (e.getUpdatedLines() == 0) lines = 0;
-    invalidate(e.getFirstUpdatedLine(), e.getUpdatedLines());
+    update(e.getFirstUpdatedLine(), e.getUpdatedLines());
   }
 
  /**
@@ -257,23 +271,47 @@ implements TextListener
   * @param <code>e</code> the text event.
   */
   public void textUpdated(TextEvent e) {
-    invalidate(e.getFirstUpdatedLine(), e.getUpdatedLines());
+    update(e.getFirstUpdatedLine(), e.getUpdatedLines());
   }
 
  /**
   * Invoked when a new text has been inserted in the target text.
   * @param <code>e</code> the text event.
   */
-  public void textInserted (TextEvent e)
+  public void textInserted (TextEvent e) {
+    update(e.getFirstUpdatedLine(), e.getUpdatedLines());
+  }
+
+  /**
+  * Invoked when the specified lines of the target text have been modified. The lines
+  * that follow the modified lines are shifted by the difference between the new and the
+  * old text size. The method updates the lines widths and the range of the lines that
+  * have to be measured.
+  * @param <code>first</code> the specified first modified line.
+  * @param <code>n</code> the specified number of modified lines.
+  */
+  private void update(int first, int n)
   {
-    int ln = e.getUpdatedLines(), first = e.getFirstUpdatedLine();
-    if (ln > 1 && lines > 0)
+    int size = getTextModel().getSize(), delta = size - textSize;
+    textSize = size;
+    if (delta != 0)
     {
-      if (first <= startLine) startLine += (ln - 1);
-      else
-      if (first < startLine + lines) lines += (ln - 1);
+      if (widths.size() == textSize - delta)
+      {
+        if (delta > 0) widths.insert(first + n - delta, delta);
+        else           widths.remove(first + n, -delta);
+      }
+
+      if (lines > 0)
+      {
+        int to = first + n - delta, s1 = startLine, s2 = startLine + lines;
+        s1 = (s1 >= to)?s1 + delta:Math.min(s1, first + n);
+        s2 = (s2 >= to)?s2 + delta:Math.min(s2, first + n);
+        startLine = s1;
+        lines     = Math.max(s2 - s1, 0);
+      }
     }
-    invalidate(first, ln);
+    invalidate(first, n);
   }
 
   protected void invalidate(int start, int size)
@@ -307,7 +345,8 @@ implements TextListener
   * @param <code>d</code> the specified owner component that uses the render.
   */
   protected /*C#virtual*/ void paintLine(Graphics g, int x, int y, int line, Drawable d) {
-    g.drawString(getLine(line), x, y + getAscent());
+    getLineChars(line, segment);
+    g.drawChars(segment.getArray(), segment.getOffset(), segment.getCount(), x, y + getAscent());
   }
 
  /**
@@ -394,7 +433,7 @@ implements TextListener
   */
   public /*C#virtual*/ int lineWidth (int line) {
     validate();
-    return getTextModel().getExtraChar(line);
+    return widths.get(line);
   }
 
  /**
@@ -408,6 +447,17 @@ implements TextListener
     return getFontMetrics().stringWidth(s);
   }
 
+ /**
+  * Returns the total advance width for showing the specified part of the character array.
+  * @param <code>ch</code> the specified character array.
+  * @param <code>off</code> the specified starting offset.
+  * @param <code>len</code> the specified number of characters.
+  * @return a characters width.
+  */
+  public /*C#virtual*/ int charsWidth (char[] ch, int off, int len) {
+    return getFontMetrics().charsWidth(ch, off, len);
+  }
+
  /**
   * Returns the total advance width for showing the specified substring.
   * @param <code>s</code> the specified string.
@@ -420,7 +470,9 @@ implements TextListener
   }
 
  /**
-  * Gets the string presentation of the specified line.
+  * Gets the string presentation of the specified line. If the method is overrided than
+  * <code>getLineChars</code> method should be overrided too, since the render uses it to
+  * paint lines.
   * @param <code>r</code> the specified line number.
   * @return a string line.
   */
@@ -428,6 +480,20 @@ implements TextListener
     return getTextModel().getLine(r);
   }
 
+ /**
+  * Sets the specified segment to the characters of the specified line. The method is used
+  * to paint lines without creating strings if the text model implements
+  * <code>SegmentTextModel</code> interface.
+  * @param <code>r</code> the specified line number.
+  * @param <code>s</code> the specified segment.
+  */
+  protected /*C#virtual*/ void getLineChars(int r, TextSegment s)
+  {
+    TextModel text = getTextModel();
+    if (text instanceof SegmentTextModel) ((SegmentTextModel)text).getLineChars(r, s);
+    else                                  s.set(getLine(r));
+  }
+
  /**
   * The method is called whenever the view owner have been changed.
   * The render overrides the method to store owner component reference. The reference
@@ -437,6 +503,14 @@ implements TextListener
   protected /*C#override*/ void ownerChanged(Validationable v) {
     owner = v;
   }
+
+ /**
+  * Gets the owner component of the render.
+  * @return an owner component or <code>null</code> if the render doesn't have an owner.
+  */
+  protected Validationable getOwner() {
+    return owner;
+  }
 }
 
 
@@ -192,6 +192,7 @@ implements MatrixListener, ScrollObj, LwMouseListener,
     private Color              netColor = Color.gray, noneActSelColor = LwToolkit.darkBlue, actSelColor = Color.yellow;
 
     private CellsVisibility    visibility = new CellsVisibility();
+    private boolean            isVisibleRowsPosted;
     private ScrollMan          man;
     private PosController      controller;
     private LwComponent        topCaption, editor;
@@ -465,13 +466,40 @@ implements MatrixListener, ScrollObj, LwMouseListener,
 
     public void matrixResized(MatrixEvent e)
     {
+      int row = e.getResizedRow(), pr = e.getPrevSize().width, d = getGridRows() - pr;
+      if (row >= 0 && d != 0 && !isUsePsMetric() && rowHeights != null &&
+          rowHeights.length == pr && row - Math.min(d, 0) <= pr)
+      {
+        // the custom rows heights follow their rows
+        int[] na = new int[pr + d];
+        System.arraycopy(rowHeights, 0, na, 0, row);
+        System.arraycopy(rowHeights, row - Math.min(d, 0), na, row + Math.max(d, 0), pr - row + Math.min(d, 0));
+        for (int i=row; i<row + d; i++) na[i] = DEF_ROWHEIGHT;
+        rowHeights = na;
+      }
+
       iMetric();
-      if (controller != null && controller.getCurrentLine() >= getGridRows())
-        controller.clearPos();
+      if (controller != null)
+      {
+        int line = controller.getCurrentLine();
+        if (row >= 0 && d != 0 && line >= row)
+        {
+          if (d < 0 && line < row - d) controller.clearPos();
+          else                         controller.setOffset(line + d);
+        }
+
+        if (controller.getCurrentLine() >= getGridRows()) controller.clearPos();
+      }
     }
 
-    public void cellModified (MatrixEvent e) {
+    public void cellModified (MatrixEvent e)
+    {
       if (isUsePsMetric()) iMetric();
+      if (e.getID() == MatrixEvent.RANGE_MODIFIED)
+      {
+        if (isUsePsMetric()) repaint();
+        else                 repaintCells(e.getModifiedRange());
+      }
     }
 
     public /*C#override*/ void paint(Graphics g)
@@ -479,11 +507,37 @@ implements MatrixListener, ScrollObj, LwMouseListener,
       vVisibility();
       if (visibility.hasVisibleCells())
       {
+        if (data instanceof VisibleRowsListener && !isVisibleRowsPosted)
+        {
+          isVisibleRowsPosted = true;
+          EventQueue.invokeLater(new Runnable() {
+            public void run() {
+              fireVisibleRows();
+            }
+          });
+        }
+
         paintData  (g);
         paintNet (g);
       }
     }
 
+   /**
+    * Notifies the data model about the visible rows if the model implements
+    * <code>VisibleRowsListener</code> interface. The method is called after the grid has
+    * been painted, so the model is not modified during painting.
+    */
+    private void fireVisibleRows()
+    {
+      isVisibleRowsPosted = false;
+      if (data instanceof VisibleRowsListener)
+      {
+        vVisibility();
+        if (visibility.hasVisibleCells())
+          ((VisibleRowsListener)data).visibleRowsChanged(visibility.fr.x, visibility.lr.x);
+      }
+    }
+
     public /*C#override*/ void paintOnTop(Graphics g) {
       vVisibility();
       if (visibility.hasVisibleCells()) paintMarker(g);
@@ -622,7 +676,7 @@ implements MatrixListener, ScrollObj, LwMouseListener,
         int y = getRowY(off);
         Point o = calcOrigin(off, y);
         int poff = e.getPrevOffset();
-        if (poff >= 0)
+        if (poff >= 0 && poff < getGridRows())
         {
           int yy = getRowY(poff);
           repaint (0, Math.min(yy, y) + dy, width, Math.abs(yy - y) + rowHeight(Math.max(off, poff)));
@@ -877,7 +931,11 @@ implements MatrixListener, ScrollObj, LwMouseListener,
 
    /**
     * Invoked whenever the component paints the specified cell to fetch data from the
-    * grid data model.
+    * grid data model. The method is not called if the view provider implements
+    * <code>LwTypedViewProvider</code> interface and the data model implements
+    * <code>TypedMatrixModel</code> interface, in this case the cell view is got directly
+    * from the data model (see <code>paintData</code> method). A subclass that overrides the
+    * method should use a view provider that doesn't implement the typed interface.
     * @param <code>row</code> the specified row.
     * @param <code>col</code> the specified column.
     * @return data to be painted.
@@ -963,7 +1021,10 @@ implements MatrixListener, ScrollObj, LwMouseListener,
     }
 
    /**
-    * Paints the grid cells.
+    * Paints the grid cells. If the view provider implements <code>LwTypedViewProvider</code>
+    * interface and the data model implements <code>TypedMatrixModel</code> interface the cells
+    * views are got with the typed provider method and the <code>dataToPaint</code> method is
+    * bypassed, otherwise the cells values are fetched with the <code>dataToPaint</code> method.
     * @param <code>g</code> the specified graphics context.
     */
     protected /*C#virtual*/ void paintData (Graphics g)
@@ -972,6 +1033,9 @@ implements MatrixListener, ScrollObj, LwMouseListener,
       int addW = cellInsets.left + cellInsets.right;
       int addH = cellInsets.top  + cellInsets.bottom;
       Rectangle r = g.getClipBounds();
+      LwTypedViewProvider typed = (provider instanceof LwTypedViewProvider &&
+                                   data instanceof TypedMatrixModel) ? (LwTypedViewProvider)provider
+                                                                     : null;
 
       for (int i=visibility.fr.x; i<=visibility.lr.x && y < r.y + r.height; i++)
       {
@@ -980,7 +1044,8 @@ implements MatrixListener, ScrollObj, LwMouseListener,
           int x = visibility.fc.y + cellInsets.left;
           for (int j=visibility.fc.x; j<=visibility.lc.x; j++)
           {
-             LwView v = provider.getView(i, j, dataToPaint(i, j));
+             LwView v = typed != null ? typed.getView(i, j, (TypedMatrixModel)data)
+                                      : provider.getView(i, j, dataToPaint(i, j));
              if (v != null && !(i == editingRow && j == editingCol))
              {
                Color bg = provider.getCellColor(i, j);
@@ -1202,6 +1267,29 @@ implements MatrixListener, ScrollObj, LwMouseListener,
       bits = MathBox.getBits(bits, ROWVIS_VALID, false);
     }
 
+   /**
+    * Repaints the visible part of the specified cells range. The range is presented with
+    * java.awt.Rectangle class where <code>x</code> and <code>y</code> fields correspond to
+    * the first row and the first column, <code>width</code> and <code>height</code> fields
+    * correspond to the number of rows and the number of columns.
+    */
+    private void repaintCells(Rectangle range)
+    {
+      vVisibility();
+      if (visibility.hasVisibleCells())
+      {
+        int r1 = Math.max(range.x, visibility.fr.x);
+        int r2 = Math.min(range.x + range.width - 1, visibility.lr.x);
+        int c1 = Math.max(range.y, visibility.fc.x);
+        int c2 = Math.min(range.y + range.height - 1, visibility.lc.x);
+        if (r1 <= r2 && c1 <= c2)
+        {
+          int x = getColX(c1), y = getRowY(r1);
+          repaint(x, y, getColX(c2) + colWidth(c2) - x, getRowY(r2) + rowHeight(r2) - y);
+        }
+      }
+    }
+
     private Point colVisibility(Point p, int d, boolean b)
     {
       Rectangle visibleArea = getVisiblePart();
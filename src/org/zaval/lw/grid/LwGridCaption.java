@@ -71,11 +71,17 @@ import java.util.*;
  *     Using the component it is possible to change size of the grid columns using
  *     mouse.
  *   </li>
+ *   <li>
+ *     If the grid model is <code>SortedMatrixView</code> clicking a column title sorts
+ *     the grid by the column, the next click changes the sort order. Clicking with SHIFT
+ *     key adds the column as the next sort key. The sort order of the sort columns is
+ *     shown with an arrow.
+ *   </li>
  * </ul>
  */
 public class LwGridCaption
 extends LwCanvas
-implements LwMouseMotionListener, Cursorable
+implements LwMouseMotionListener, LwMouseListener, Cursorable
 {
  /**
   * The default row height.
@@ -205,6 +211,49 @@ implements LwMouseMotionListener, Cursorable
 
   public void mouseMoved (LwMouseMotionEvent e) {}
 
+  public void mouseClicked (LwMouseEvent e)
+  {
+    SortedMatrixView view = getSortedView();
+    if (view != null && LwToolkit.isActionMask(e.getMask()) &&
+        getCursorType(this, e.getX(), e.getY()) < 0)
+    {
+      int col = getColumnAt(e.getX());
+      if (col >= 0)
+      {
+        int       order = view.getSortOrder(col);
+        int[]     cols  = view.getSortColumns();
+        boolean[] asc   = new boolean[cols.length];
+        for (int i=0; i<cols.length; i++) asc[i] = view.getSortOrder(cols[i]) > 0;
+
+        if ((e.getMask() & java.awt.event.InputEvent.SHIFT_MASK) == 0 || cols.length == 0)
+          view.sort(col, !(order > 0 && cols[0] == col));
+        else
+        if (order != 0)
+        {
+          for (int i=0; i<cols.length; i++)
+            if (cols[i] == col) asc[i] = !asc[i];
+          view.sort(cols, asc);
+        }
+        else
+        {
+          int[]     nc = new int[cols.length + 1];
+          boolean[] na = new boolean[cols.length + 1];
+          System.arraycopy(cols, 0, nc, 0, cols.length);
+          System.arraycopy(asc, 0, na, 0, cols.length);
+          nc[cols.length] = col;
+          na[cols.length] = true;
+          view.sort(nc, na);
+        }
+        repaint();
+      }
+    }
+  }
+
+  public void mouseEntered (LwMouseEvent e) {}
+  public void mouseExited  (LwMouseEvent e) {}
+  public void mousePressed (LwMouseEvent e) {}
+  public void mouseReleased(LwMouseEvent e) {}
+
   public int getCursorType(LwComponent target, int x, int y)
   {
     if (!started)
@@ -235,6 +284,7 @@ implements LwMouseMotionListener, Cursorable
     int       y    = ins.top;
     int       cols = metrics.getGridCols();
     Rectangle clip = g.getClipBounds();
+    SortedMatrixView view = getSortedView();
 
     for (int i=0; i < cols; i++)
     {
@@ -265,6 +315,7 @@ implements LwMouseMotionListener, Cursorable
       }
 
       if (borderView != null) borderView.paint (g, x, y, w, psH, this);
+      if (view != null && view.getSortOrder(i) != 0) paintSortMarker(g, x + w - 12, y + psH/2, view.getSortOrder(i) > 0);
       x += w;
     }
   }
@@ -299,6 +350,35 @@ implements LwMouseMotionListener, Cursorable
     return new Dimension (psW, psH);
   }
 
+  private SortedMatrixView getSortedView()
+  {
+    if (metrics instanceof LwGrid)
+    {
+      MatrixModel m = ((LwGrid)metrics).getModel();
+      if (m instanceof SortedMatrixView) return (SortedMatrixView)m;
+    }
+    return null;
+  }
+
+  private int getColumnAt(int x)
+  {
+    int g  = metrics.getNetGap();
+    int xx = getInsets().left + metrics.getOrigin().x + g;
+    for (int i=0; i < metrics.getGridCols(); i++)
+    {
+      xx += (metrics.getColWidth(i) + g);
+      if (x < xx) return i;
+    }
+    return -1;
+  }
+
+  private static void paintSortMarker(Graphics g, int x, int y, boolean ascending)
+  {
+    g.setColor(Color.gray);
+    if (ascending) g.fillPolygon(new int[] { x, x + 8, x + 4 }, new int[] { y + 2, y + 2, y - 2 }, 3);
+    else           g.fillPolygon(new int[] { x, x + 8, x + 4 }, new int[] { y - 2, y - 2, y + 2 }, 3);
+  }
+
   private int getSizeLineHeight() {
     //!!!
     return  getLwParent().getSize().height;
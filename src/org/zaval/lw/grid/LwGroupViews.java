@@ -0,0 +1,116 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.lw.grid;
+
+import org.zaval.lw.*;
+import org.zaval.data.*;
+import java.awt.*;
+
+/**
+ * This class is an extension of <code>LwTypedViews</code> class that renders a
+ * <code>GroupedMatrixView</code> model. The group header rows are filled with the group
+ * color and the group column cell of a header row shows the group key, the number of the
+ * group rows and the expanded state mark.
+ */
+public class LwGroupViews
+extends LwTypedViews
+{
+  private GroupedMatrixView view;
+  private Color             groupColor = new Color(224, 224, 224);
+
+ /**
+  * Constructs the provider for the specified grouping view.
+  * @param <code>v</code> the specified grouping view.
+  */
+  public LwGroupViews(GroupedMatrixView v) {
+    view = v;
+  }
+
+ /**
+  * Gets the color that is used to fill the group header rows.
+  * @return a group header rows color.
+  */
+  public Color getGroupColor() {
+    return groupColor;
+  }
+
+ /**
+  * Sets the color that is used to fill the group header rows.
+  * @param <code>c</code> the group header rows color.
+  */
+  public void setGroupColor(Color c) {
+    groupColor = c;
+  }
+
+ /**
+  * Gets the the specified grid cell color. The implementation returns the group color for
+  * the group header rows.
+  * @param <code>row</code> the specified cell row.
+  * @param <code>col</code> the specified cell column.
+  * @return a color.
+  */
+  public /*C#override*/ Color getCellColor(int row, int col) {
+    return view.isGroupRow(row)?groupColor:super.getCellColor(row, col);
+  }
+
+ /**
+  * Gets the view of the specified cell and the given data model value.
+  * @param <code>row</code> the specified cell row.
+  * @param <code>col</code> the specified cell column.
+  * @param <code>obj</code> the specified data model value.
+  * @return a view.
+  */
+  public /*C#override*/ LwView getView(int row, int col, Object obj)
+  {
+    if (col == view.getGroupColumn() && view.isGroupRow(row))
+    {
+      int g = view.getGroup(row);
+      obj = (view.isExpanded(g)?"- ":"+ ") + obj + " (" + view.getGroupSize(g) + ")";
+    }
+    return super.getView(row, col, obj);
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.lw.grid;
+
+import org.zaval.lw.*;
+import org.zaval.data.*;
+
+/**
+ * This interface can be implemented with a grid view provider to get the grid cells views
+ * basing on the typed data model. If the grid data model implements <code>TypedMatrixModel</code>
+ * interface the grid paints cells using the interface method instead of fetching the cell
+ * value as an object, so numeric cells values are not wrapped with objects during painting.
+ * Note that the grid <code>dataToPaint</code> method is bypassed in this case, the cell
+ * value is read from the data model directly.
+ */
+public interface LwTypedViewProvider
+extends LwGridViewProvider
+{
+ /**
+  * Gets the view of the specified cell of the given typed data model.
+  * @param <code>row</code> the specified cell row.
+  * @param <code>col</code> the specified cell column.
+  * @param <code>m</code> the grid data model.
+  * @return a view.
+  */
+  LwView getView(int row, int col, TypedMatrixModel m);
+}
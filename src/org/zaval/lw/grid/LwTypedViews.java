@@ -0,0 +1,195 @@
+/**
+ *     Caption: Zaval Light-Weight Visual Components Library
+ *     $Revision: 2.79 $
+ *     $Date: 2003/10/08 11:24:16 $
+ *
+ *     @author:     Andrei Vishnevsky
+ *     @version:    3.5.4
+ *
+ * Zaval Light-Weight Visual Components Library (LwVCL) is a pure Java
+ * alternative to humble AWT-based and SWING-based GUI interfaces for
+ * wide ranges of platforms, including J2SE, PersonalJava and J2ME.
+ *
+ * Designed as light-weight but, alternatively to Swing, built separately
+ * from AWT (not on top of the java.awt library like Swing), the LwVCL is
+ * the good alternative to highly performant, memory-efficient, flexible
+ * GUI solution for embedded, stand-alone and applet applications.
+ *
+ * For more info on this product read Zaval Light-Weight Visual Components Library Tutorial
+ * (It comes within this package).
+ * The latest product version is always available from the product's homepage:
+ * http://www.zaval.org/products/lwvcl/
+ * and from the SourceForge:
+ * http://sourceforge.net/projects/zaval0003/
+ *
+ * Contacts:
+ *   Support : support@zaval.org
+ *   Change Requests : change-request@zaval.org
+ *   Feedback : feedback@zaval.org
+ *   Other : info@zaval.org
+ *
+ * Copyright (C) 2001-2003  Zaval Creative Engineering Group (http://www.zaval.org)
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * (version 2) as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ */
+package org.zaval.lw.grid;
+
+import org.zaval.lw.*;
+import org.zaval.data.*;
+import org.zaval.data.event.*;
+
+/**
+ * This class is an extension of <code>LwDefViews</code> class that implements
+ * <code>LwTypedViewProvider</code> interface. The provider renders numeric cells of a
+ * <code>TypedMatrixModel</code> directly from the primitive values: a value is formatted
+ * into a reused character buffer and painted from the buffer, so painting a typed cell
+ * doesn't create a string. The typed cells are rendered with a separate text render that
+ * takes the font and the color of the <code>getTextRender</code> render. Besides, unlike the
+ * <code>LwDefViews</code> class, the provider can render any not-null object using its
+ * string representation.
+ */
+public class LwTypedViews
+extends LwDefViews
+implements LwTypedViewProvider
+{
+   private CellText     cellText   = new CellText();
+   private LwTextRender typedView  = new LwTextRender(cellText);
+   private StringBuffer buf        = new StringBuffer(32);
+
+ /**
+  * Gets the view of the specified cell of the given typed data model.
+  * The implementation returns <code>LwTextRender</code> as the view.
+  * @param <code>row</code> the specified cell row.
+  * @param <code>col</code> the specified cell column.
+  * @param <code>m</code> the grid data model.
+  * @return a view.
+  */
+  public /*C#virtual*/ LwView getView(int row, int col, TypedMatrixModel m)
+  {
+    buf.setLength(0);
+    switch (m.getType(col))
+    {
+      case TypedMatrixModel.INT   : buf.append(m.getInt(row, col)); break;
+      case TypedMatrixModel.LONG  : buf.append(m.getLong(row, col)); break;
+      case TypedMatrixModel.DOUBLE: buf.append(m.getDouble(row, col)); break;
+      default                     :
+      {
+        String s = m.getString(row, col);
+        if (s == null) return null;
+        buf.append(s);
+      } break;
+    }
+
+    LwTextRender r = getTextRender();
+    typedView.setFont(r.getFont());
+    typedView.setForeground(r.getForeground());
+    cellText.set(buf);
+    return typedView;
+  }
+
+ /**
+  * Gets the view of the specified cell and the given data model value.
+  * The implementation returns <code>LwTextRender</code> as the view.
+  * @param <code>row</code> the specified cell row.
+  * @param <code>col</code> the specified cell column.
+  * @param <code>obj</code> the specified data model value.
+  * @return a view.
+  */
+  public /*C#override*/ LwView getView(int row, int col, Object obj) {
+    return super.getView(row, col, obj == null?null:obj.toString());
+  }
+}
+
+/**
+ * The single line text model that keeps the text in a reused character array. The
+ * model is used to render typed cells without creating strings, it performs one and
+ * the same text event instance every time the text is set. The model is read-only for
+ * the editing methods.
+ */
+class CellText
+implements SegmentTextModel
+{
+   private char[] chars = new char[32];
+   private int    length, extra;
+   private TextListenerSupport support;
+   private TextEvent event;
+
+   public void set(StringBuffer s)
+   {
+     length = s.length();
+     if (length > chars.length) chars = new char[Math.max(length, chars.length * 2)];
+     s.getChars(0, length, chars, 0);
+     if (support != null) support.perform(event);
+   }
+
+   public String getLine(int line) {
+     return new String(chars, 0, length);
+   }
+
+   public void getLineChars(int line, TextSegment s) {
+     s.set(chars, 0, length);
+   }
+
+   public void setText(String text) {
+     set(new StringBuffer(text == null?"":text));
+   }
+
+   public String getText() {
+     return getLine(0);
+   }
+
+   public int getSize() {
+     return 1;
+   }
+
+   public void write(String s, int offset) {
+     throw new UnsupportedOperationException();
+   }
+
+   public void write(char ch, int offset) {
+     throw new UnsupportedOperationException();
+   }
+
+   public void remove(int offset, int size) {
+     throw new UnsupportedOperationException();
+   }
+
+   public int getTextLength() {
+     return length;
+   }
+
+   public void addTextListener(TextListener l)
+   {
+     if (support == null)
+     {
+       support = new TextListenerSupport();
+       event   = new TextEvent(this, TextEvent.UPDATED, 0, 0);
+       event.setUpdatedLines(0, 1);
+     }
+     support.addListener(l);
+   }
+
+   public void removeTextListener(TextListener l) {
+     if (support != null) support.removeListener(l);
+   }
+
+   public int getExtraChar(int i) {
+     return extra;
+   }
+
+   public void setExtraChar(int i, int ch) {
+     extra = ch;
+   }
+}
@@ -55,6 +55,8 @@ import org.zaval.misc.event.*;
  * virtual position basing on the navigation object information. The information
  * should be provided by implementing <code>PosInfo</code> interface with the object. The interface
  * defines number of virtual lines, size of the specified virtual line and so on.
+ * If the information object implements <code>IndexedPosInfo</code> interface than the controller
+ * uses the lines offsets it provides instead of walking through the lines sizes.
  */
 public class PosController
 extends org.zaval.util.ValidationObject
@@ -301,6 +303,9 @@ extends org.zaval.util.ValidationObject
        } break;
        case UP :
        {
+         if (currentLine > 0 && seekLineByIndex(Math.max(currentLine - Math.max(num, 1), 0)))
+           perform(new PosEvent(this, prevOffset, prevLine, prevCol));
+         else
          if (currentLine > 0)
          {
            offset -= (currentCol + 1);
@@ -316,6 +321,10 @@ extends org.zaval.util.ValidationObject
        } break;
        case DOWN :
        {
+         if (currentLine < (pi.getLines() - 1) &&
+             seekLineByIndex(Math.min(currentLine + Math.max(num, 1), pi.getLines() - 1)))
+           perform(new PosEvent(this, prevOffset, prevLine, prevCol));
+         else
          if (currentLine < (pi.getLines() - 1))
          {
            offset += (pi.getLineSize(currentLine) - currentCol);
@@ -440,6 +449,14 @@ extends org.zaval.util.ValidationObject
      PosInfo pi = pc.getPosInfo();
      if (pi == null) return null;
 
+     if (pi instanceof IndexedPosInfo)
+     {
+       IndexedPosInfo ipi = (IndexedPosInfo)pi;
+       int line = ipi.getLineByOffset(offset);
+       int lo   = line < 0?-1:ipi.getLineOffset(line);
+       if (lo >= 0) return new Point(line, offset - lo);
+     }
+
      if (offset > pc.prevOffset)
      {
        boolean b = pc.prevOffset < 0;
@@ -478,6 +495,12 @@ extends org.zaval.util.ValidationObject
   public static int getOffsetByPoint(int row, int col, PosController pc)
   {
     PosInfo pi = pc.getPosInfo();
+    if (pi instanceof IndexedPosInfo)
+    {
+      int lo = ((IndexedPosInfo)pi).getLineOffset(row);
+      if (lo >= 0) return lo + col;
+    }
+
     int startOffset = pc.prevOffset < 0?0:pc.prevOffset - pc.prevCol;
     int startLine   = pc.prevOffset < 0?0:pc.prevLine;
 
@@ -501,10 +524,32 @@ extends org.zaval.util.ValidationObject
   */
   public static int calcMaxOffset(PosInfo pi)
   {
+    int last = pi.getLines() - 1;
+    if (last >= 0 && pi instanceof IndexedPosInfo)
+    {
+      int lo = ((IndexedPosInfo)pi).getLineOffset(last);
+      if (lo >= 0) return lo + pi.getLineSize(last) - 1;
+    }
+
     int max = 0;
     for (int i = 0; i < pi.getLines(); i++) max += pi.getLineSize(i);
     return max - 1;
   }
-}
-
 
+  private boolean seekLineByIndex(int line)
+  {
+    if (pi instanceof IndexedPosInfo)
+    {
+      int lo = ((IndexedPosInfo)pi).getLineOffset(line);
+      if (lo >= 0)
+      {
+        int maxCol = pi.getLineSize(line);
+        if (currentCol >= maxCol) currentCol = maxCol - 1;
+        currentLine = line;
+        offset      = lo + currentCol;
+        return true;
+      }
+    }
+    return false;
+  }
+}